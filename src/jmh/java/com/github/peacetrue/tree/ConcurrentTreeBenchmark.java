@@ -0,0 +1,59 @@
+package com.github.peacetrue.tree;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ConcurrentTree}在并发修改下的读取吞吐量。
+ * <p>
+ * 读线程随机查询父辈节点和祖先关系，写线程持续添加、删除一个叶子节点。
+ * 通过 {@code -tg 1,1}、{@code -tg 2,1}、{@code -tg 4,1}、{@code -tg 8,1} 等参数调整读线程数，
+ * 对比 read 的吞吐量，检查读取是否随核数线性增长。
+ *
+ * @author xiayx
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Group)
+public class ConcurrentTreeBenchmark {
+
+    @Param({"10000", "100000"})
+    public int size;
+
+    private List<Row> rows;
+    private ConcurrentTree<Row> tree;
+    private Row absent;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        rows = TreeShape.RANDOM.generate(size, TreeState.SEED);
+        tree = new ConcurrentTree<>(Row.KEY_PREDICATE, rows);
+        absent = new Row(size, rows.get(size - 1).getId());
+    }
+
+    @Benchmark
+    @Group("readWrite")
+    @GroupThreads(4)
+    public void read(Blackhole blackhole) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Row node = rows.get(random.nextInt(size)), other = rows.get(random.nextInt(size));
+        blackhole.consume(tree.findParents(node));
+        blackhole.consume(tree.isAncestorOf(other, node));
+    }
+
+    @Benchmark
+    @Group("readWrite")
+    @GroupThreads(1)
+    public void write() {
+        tree.addNode(absent);
+        tree.removeNode(absent);
+    }
+
+}
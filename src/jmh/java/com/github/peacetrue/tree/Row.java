@@ -0,0 +1,69 @@
+package com.github.peacetrue.tree;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 基准测试使用的节点，模拟数据库中包含 id、parentId 列的行记录
+ *
+ * @author xiayx
+ */
+public class Row {
+
+    /** 通过主键关联节点 */
+    public static final KeyPredicate<Row, Long> KEY_PREDICATE = KeyPredicate.of(Row::getId, Row::getParentId);
+
+    /** 二进制格式的编解码器，依次写入 id 和 parentId，根节点的 parentId 写入 -1 */
+    public static final NodeCodec<Row> CODEC = new NodeCodec<Row>() {
+        @Override
+        public byte[] encode(Row node) {
+            return ByteBuffer.allocate(16).putLong(node.id).putLong(node.parentId == null ? -1 : node.parentId).array();
+        }
+
+        @Override
+        public Row decode(ByteBuffer buffer) {
+            long id = buffer.getLong(), parentId = buffer.getLong();
+            return new Row(id, parentId < 0 ? null : parentId);
+        }
+    };
+
+    private final long id;
+    private final Long parentId;
+
+    public Row(long id, Long parentId) {
+        this.id = id;
+        this.parentId = parentId;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public Long getParentId() {
+        return parentId;
+    }
+
+    /** 作为{@link RootPredicate}使用 */
+    public static boolean isRoot(Row row) {
+        return row.parentId == null;
+    }
+
+    /** 作为{@link RelationPredicate}使用，树的实现无法感知其中的主键 */
+    public static boolean isParentOf(Row parent, Row child) {
+        return child.parentId != null && child.parentId == parent.id;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || o instanceof Row && ((Row) o).id == id;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(id);
+    }
+
+    @Override
+    public String toString() {
+        return "Row(" + id + ")";
+    }
+}
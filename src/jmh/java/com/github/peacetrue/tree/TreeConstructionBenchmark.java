@@ -0,0 +1,54 @@
+package com.github.peacetrue.tree;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 通过节点集合构造树的基准测试，
+ * 例如：{@link GenericTree#GenericTree(RootPredicate, RelationPredicate, java.util.Collection)}
+ *
+ * @author xiayx
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class TreeConstructionBenchmark {
+
+    @Benchmark
+    public Tree<Row> create(TreeState state) {
+        return state.type.create(state.rows);
+    }
+
+    /** 逐个接收节点构造，与{@link TreeType}无关 */
+    @Benchmark
+    public Tree<Row> stream(TreeState state) {
+        return new StreamingTreeBuilder<>(Row.KEY_PREDICATE).acceptAll(state.rows.iterator()).build();
+    }
+
+    /** 预先写入二进制格式的树，存放在堆外内存中模拟内存映射的文件 */
+    @State(Scope.Benchmark)
+    public static class FormatState extends TreeState {
+        public ByteBuffer buffer;
+
+        @Setup(Level.Trial)
+        public void write() throws IOException {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            TreeFormat.write(tree, Row.CODEC, out);
+            byte[] bytes = out.toByteArray();
+            buffer = ByteBuffer.allocateDirect(bytes.length);
+            buffer.put(bytes).flip();
+        }
+    }
+
+    @Benchmark
+    public Tree<Row> load(FormatState state) {
+        return TreeFormat.read(state.buffer, Row.CODEC);
+    }
+
+}
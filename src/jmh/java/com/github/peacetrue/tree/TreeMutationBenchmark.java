@@ -0,0 +1,53 @@
+package com.github.peacetrue.tree;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link Tree}修改方法的基准测试
+ *
+ * @author xiayx
+ */
+@Fork(1)
+public class TreeMutationBenchmark {
+
+    /** 添加一个叶子节点再删除，树的状态保持不变 */
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 3, time = 2)
+    @Measurement(iterations = 5, time = 2)
+    public void addAndRemoveNode(TreeState state) {
+        state.tree.addNode(state.absent);
+        state.tree.removeNode(state.absent);
+    }
+
+    /** 每次调用前重新构造树，只测量删除分支的耗时 */
+    @State(Scope.Thread)
+    public static class BranchState extends TreeState {
+        @Setup(Level.Invocation)
+        public void rebuild() {
+            tree = type.create(rows);
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 3)
+    @Measurement(iterations = 10)
+    public void removeBranch(BranchState state) {
+        state.tree.removeNode(state.branch);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 3)
+    @Measurement(iterations = 10)
+    public Object detachBranch(BranchState state) {
+        return state.tree.detach(state.branch);
+    }
+
+}
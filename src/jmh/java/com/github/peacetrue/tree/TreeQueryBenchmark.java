@@ -0,0 +1,145 @@
+package com.github.peacetrue.tree;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link Tree}查询方法的基准测试
+ *
+ * @author xiayx
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TreeQueryBenchmark {
+
+    @Benchmark
+    public Object getRoot(TreeState state) {
+        return state.tree.getRoot();
+    }
+
+    @Benchmark
+    public void getNodes(TreeState state, Blackhole blackhole) {
+        for (Row row : state.tree.getNodes()) blackhole.consume(row);
+    }
+
+    @Benchmark
+    public boolean contains(TreeState state) {
+        return state.tree.contains(state.leaf);
+    }
+
+    @Benchmark
+    public Object findParent(TreeState state) {
+        return state.tree.findParent(state.leaf);
+    }
+
+    /** 包装度量树，与{@link #findParent(TreeState)}比较得出度量的开销 */
+    @State(Scope.Benchmark)
+    public static class MeteredState extends TreeState {
+        public MeteredTree<Row> metered;
+
+        @Setup(Level.Trial)
+        public void meter() {
+            metered = new MeteredTree<>(tree, new CountingTreeMetrics());
+        }
+    }
+
+    @Benchmark
+    public Object meteredFindParent(MeteredState state) {
+        return state.metered.findParent(state.leaf);
+    }
+
+    @Benchmark
+    public Object findParents(TreeState state) {
+        return state.tree.findParents(state.leaf);
+    }
+
+    @Benchmark
+    public Object findChildren(TreeState state) {
+        return state.tree.findChildren(state.branch);
+    }
+
+    @Benchmark
+    public Object findYounger(TreeState state) {
+        return state.tree.findYounger(state.branch);
+    }
+
+    @Benchmark
+    public Object preOrderFindFirst(TreeState state) {
+        return state.tree.preOrder(state.branch).filter(row -> row.getId() % 1000 == 999).findFirst();
+    }
+
+    @Benchmark
+    public Object query(TreeState state) {
+        return state.tree.query(state.branch, row -> row.getId() % 1000 == 999, 10, 10);
+    }
+
+    /** 按 id 的末位建立索引，查询条件与{@link #query(TreeState)}相当 */
+    @State(Scope.Benchmark)
+    public static class IndexState extends TreeState {
+        public AttributeIndex<Row, Long> index;
+
+        @Setup(Level.Trial)
+        public void index() {
+            index = new AttributeIndex<>(tree, row -> row.getId() % 1000);
+        }
+    }
+
+    @Benchmark
+    public Object indexedQuery(IndexState state) {
+        return state.index.query(state.branch, 999L, 10, 10);
+    }
+
+    @Benchmark
+    public long preOrderParallelCount(TreeState state) {
+        return state.tree.preOrder(state.branch).parallel().count();
+    }
+
+    /** 一次后序遍历汇总所有节点 */
+    @Benchmark
+    public Object aggregate(TreeState state) {
+        return new TreeAggregator<>(state.tree, Row::getId, Long::sum).getValue(state.branch);
+    }
+
+    @Benchmark
+    public long hash(TreeState state) {
+        return state.tree.hash(state.branch);
+    }
+
+    /** 新增一个叶子节点后的树 */
+    @State(Scope.Benchmark)
+    public static class DiffState extends TreeState {
+        public Tree<Row> changed;
+
+        @Setup(Level.Trial)
+        public void change() {
+            changed = type.create(rows);
+            changed.addNode(absent);
+        }
+    }
+
+    @Benchmark
+    public Object diff(DiffState state) {
+        return TreeDiff.of(state.tree, state.changed);
+    }
+
+    @Benchmark
+    public Object subtree(TreeState state) {
+        return state.tree.subtree(state.branch);
+    }
+
+    @Benchmark
+    public Object view(TreeState state) {
+        return state.tree.view(state.branch);
+    }
+
+    @Benchmark
+    public Object localTree(TreeState state) {
+        return state.tree.localTree(state.selection);
+    }
+
+}
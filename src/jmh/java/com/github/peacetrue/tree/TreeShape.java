@@ -0,0 +1,62 @@
+package com.github.peacetrue.tree;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 基准测试使用的树形状，生成的节点按根节点->叶子节点的顺序排列
+ *
+ * @author xiayx
+ */
+public enum TreeShape {
+
+    /** 链状：每个节点只有一个子节点，深度等于节点数 */
+    CHAIN {
+        @Override
+        int parentOf(int index, Random random) {
+            return index - 1;
+        }
+    },
+    /** 扇状：除根节点外都是根节点的子节点，深度为 1 */
+    FAN {
+        @Override
+        int parentOf(int index, Random random) {
+            return 0;
+        }
+    },
+    /** 平衡 8 叉树 */
+    KARY {
+        @Override
+        int parentOf(int index, Random random) {
+            return (index - 1) / 8;
+        }
+    },
+    /** 随机递归树：父节点从已生成的节点中随机选取，深度和分支数接近组织机构、菜单等真实数据 */
+    RANDOM {
+        @Override
+        int parentOf(int index, Random random) {
+            return random.nextInt(index);
+        }
+    };
+
+    /** 获取第 index 个节点的父节点序号，index 大于 0 */
+    abstract int parentOf(int index, Random random);
+
+    /**
+     * 生成指定数目的节点
+     *
+     * @param size 节点数目
+     * @param seed 随机数种子，保证多次生成的结果一致
+     * @return 节点集合
+     */
+    public List<Row> generate(int size, long seed) {
+        Random random = new Random(seed);
+        List<Row> rows = new ArrayList<>(size);
+        rows.add(new Row(0, null));
+        for (int i = 1; i < size; i++) {
+            rows.add(new Row(i, (long) parentOf(i, random)));
+        }
+        return rows;
+    }
+}
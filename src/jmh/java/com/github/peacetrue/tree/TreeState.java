@@ -0,0 +1,55 @@
+package com.github.peacetrue.tree;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 基准测试的树状态，按形状、规模和实现构造一颗树及其探测节点。
+ * <p>
+ * {@link TreeType#GENERIC}、{@link TreeType#GENERIC_KEY}、{@link TreeType#INDEXED}的构造复杂度为 O(n²)，
+ * 在百万级以上规模不可能在合理时间内完成，因此默认规模不超过 10 万。
+ * 更大的规模通过 {@code ./gradlew jmh -PjmhSizes=1000000,10000000} 覆盖，
+ * 同时通过 {@code -PjmhTypes=INDEXED_KEY} 只保留线性构造的实现，通过 {@code -PjmhHeap=16g} 指定堆大小。
+ *
+ * @author xiayx
+ */
+@State(Scope.Benchmark)
+public class TreeState {
+
+    static final long SEED = 20191001L;
+
+    @Param({"CHAIN", "FAN", "KARY", "RANDOM"})
+    public TreeShape shape;
+
+    @Param({"1000", "10000", "100000"})
+    public int size;
+
+    @Param({"GENERIC", "GENERIC_KEY", "INDEXED", "INDEXED_KEY"})
+    public TreeType type;
+
+    public List<Row> rows;
+    public Tree<Row> tree;
+    /** 最后生成的节点，在链状树中是最深的节点 */
+    public Row leaf;
+    /** 根节点的首个子节点，在链状和 k 叉树中拥有最大的子树 */
+    public Row branch;
+    /** 随机选择的节点，用于构造局部树 */
+    public List<Row> selection;
+    /** 不在树中的节点，其父节点是{@link #leaf} */
+    public Row absent;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        rows = shape.generate(size, SEED);
+        tree = type.create(rows);
+        leaf = rows.get(size - 1);
+        branch = rows.get(Math.min(1, size - 1));
+        absent = new Row(size, leaf.getId());
+        Random random = new Random(SEED);
+        selection = new ArrayList<>(100);
+        for (int i = 0; i < 100; i++) selection.add(rows.get(random.nextInt(size)));
+    }
+}
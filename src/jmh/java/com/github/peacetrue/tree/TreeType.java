@@ -0,0 +1,43 @@
+package com.github.peacetrue.tree;
+
+import java.util.List;
+
+/**
+ * 基准测试对比的树实现
+ *
+ * @author xiayx
+ */
+public enum TreeType {
+
+    /** {@link GenericTree}，通过{@link RelationPredicate}关联节点 */
+    GENERIC {
+        @Override
+        public Tree<Row> create(List<Row> rows) {
+            return new GenericTree<>(Row::isRoot, Row::isParentOf, rows);
+        }
+    },
+    /** {@link GenericTree}，通过{@link KeyPredicate}关联节点 */
+    GENERIC_KEY {
+        @Override
+        public Tree<Row> create(List<Row> rows) {
+            return new GenericTree<>(Row.KEY_PREDICATE, rows);
+        }
+    },
+    /** {@link IndexedTree}，通过{@link RelationPredicate}关联节点 */
+    INDEXED {
+        @Override
+        public Tree<Row> create(List<Row> rows) {
+            return new IndexedTree<>(Row::isRoot, Row::isParentOf, rows);
+        }
+    },
+    /** {@link IndexedTree}，通过{@link KeyPredicate}关联节点 */
+    INDEXED_KEY {
+        @Override
+        public Tree<Row> create(List<Row> rows) {
+            return new IndexedTree<>(Row.KEY_PREDICATE, rows);
+        }
+    };
+
+    /** 使用指定节点构造树 */
+    public abstract Tree<Row> create(List<Row> rows);
+}
@@ -0,0 +1,348 @@
+package com.github.peacetrue.tree;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * 异步树，在指定的执行器上执行树的读取操作，调用线程不会被耗时的遍历阻塞。
+ * <ul>
+ * <li>查询方法返回{@link CompletableFuture}，取消后遍历类操作会尽快停止，不再占用 CPU</li>
+ * <li>遍历方法返回{@link Publisher}，按订阅者请求的数目逐批推送节点，订阅者取消后停止遍历</li>
+ * </ul>
+ * {@link Publisher}、{@link Subscriber}、{@link Subscription}的语义与 Java 9 的
+ * {@code java.util.concurrent.Flow} 相同，在 Java 9 及以上版本可以直接桥接。
+ * <p>
+ * 操作与修改可能同时执行，被包装的树需要支持并发读写，例如：{@link ConcurrentTree}，
+ * 或者先通过{@link Tree#freeze()}获取快照。
+ *
+ * @author xiayx
+ */
+public class AsyncTree<T> {
+
+    private final Tree<T> tree;
+    private final Executor executor;
+
+    /** 使用{@link ForkJoinPool#commonPool()}执行操作 */
+    public AsyncTree(Tree<T> tree) {
+        this(tree, ForkJoinPool.commonPool());
+    }
+
+    public AsyncTree(Tree<T> tree, Executor executor) {
+        this.tree = Objects.requireNonNull(tree);
+        this.executor = Objects.requireNonNull(executor);
+    }
+
+    /** @return 被包装的树 */
+    public Tree<T> getTree() {
+        return tree;
+    }
+
+    /**
+     * 在执行器上执行任意操作
+     *
+     * @param operation 操作
+     * @param <R>       结果
+     * @return 操作的结果
+     */
+    public <R> CompletableFuture<R> supply(Function<? super Tree<T>, ? extends R> operation) {
+        Objects.requireNonNull(operation);
+        return execute(future -> operation.apply(tree));
+    }
+
+    /** @see Tree#getRoot() */
+    public CompletableFuture<Optional<T>> getRoot() {
+        return supply(Tree::getRoot);
+    }
+
+    /** @see Tree#contains(Object) */
+    public CompletableFuture<Boolean> contains(T node) {
+        return supply(tree -> tree.contains(node));
+    }
+
+    /** @see Tree#findParent(Object) */
+    public CompletableFuture<Optional<T>> findParent(T node) {
+        return supply(tree -> tree.findParent(node));
+    }
+
+    /** @see Tree#findParents(Object) */
+    public CompletableFuture<List<T>> findParents(T node) {
+        return supply(tree -> tree.findParents(node));
+    }
+
+    /** @see Tree#findChildren(Object) */
+    public CompletableFuture<List<T>> findChildren(T node) {
+        return supply(tree -> tree.findChildren(node));
+    }
+
+    /**
+     * 按先序遍历查找子辈节点，取消后停止遍历
+     *
+     * @see Tree#findYounger(Object)
+     */
+    public CompletableFuture<List<T>> findYounger(T node) {
+        return execute(future -> tree.contains(node)
+                ? cancellable(tree.preOrder(node), future).skip(1).collect(Collectors.toList())
+                : new ArrayList<>());
+    }
+
+    /**
+     * 按先序遍历分页查询，取消后停止遍历，分页参数小于 0 时结果异常完成
+     *
+     * @see Tree#query(Object, Predicate, int, int)
+     */
+    public CompletableFuture<List<T>> query(T scope, Predicate<? super T> predicate, int offset, int limit) {
+        return execute(future -> {
+            if (offset < 0 || limit < 0) throw new IllegalArgumentException(String.format("分页参数[%s, %s]不能小于 0", offset, limit));
+            Objects.requireNonNull(predicate);
+            if (!tree.contains(scope)) throw new NodeAbsentException(scope);
+            return cancellable(tree.preOrder(scope), future).filter(predicate).skip(offset).limit(limit)
+                    .collect(Collectors.toList());
+        });
+    }
+
+    /** @see Tree#subtree(Object) */
+    public CompletableFuture<Tree<T>> subtree(T node) {
+        return supply(tree -> tree.subtree(node));
+    }
+
+    /** @see Tree#localTree(Collection) */
+    public CompletableFuture<Tree<T>> localTree(Collection<T> nodes) {
+        return supply(tree -> tree.localTree(nodes));
+    }
+
+    /** @see Tree#freeze() */
+    public CompletableFuture<SnapshotTree<T>> freeze() {
+        return supply(Tree::freeze);
+    }
+
+    /**
+     * 先序遍历指定节点及其子辈节点，订阅后才开始遍历
+     *
+     * @param node 起始节点
+     * @return 节点发布者
+     * @see Tree#preOrder(Object)
+     */
+    public Publisher<T> preOrder(T node) {
+        return publish(() -> tree.preOrder(node));
+    }
+
+    /**
+     * 广度优先遍历指定节点及其子辈节点，订阅后才开始遍历
+     *
+     * @param node 起始节点
+     * @return 节点发布者
+     * @see Tree#breadthFirst(Object)
+     */
+    public Publisher<T> breadthFirst(T node) {
+        return publish(() -> tree.breadthFirst(node));
+    }
+
+    /**
+     * 推送流中的节点，每个订阅者在执行器上独立遍历一次流
+     *
+     * @param source 节点流的提供者
+     * @return 节点发布者
+     */
+    public Publisher<T> publish(Supplier<? extends Stream<T>> source) {
+        Objects.requireNonNull(source);
+        return subscriber -> {
+            Objects.requireNonNull(subscriber);
+            NodeSubscription subscription = new NodeSubscription(subscriber, source);
+            subscriber.onSubscribe(subscription);
+        };
+    }
+
+    /** 在执行器上执行操作，操作可以通过传入的结果判断是否已取消 */
+    private <R> CompletableFuture<R> execute(Function<CompletableFuture<R>, ? extends R> operation) {
+        CompletableFuture<R> future = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                if (future.isDone()) return;
+                try {
+                    future.complete(operation.apply(future));
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * 遍历每个节点前检查结果是否已完成（包括取消），完成后结束流。
+     * 检查位于过滤等中间操作之前，即使没有节点满足条件，取消后也会停止遍历。
+     */
+    private static <T> Stream<T> cancellable(Stream<T> stream, CompletableFuture<?> future) {
+        Spliterator<T> spliterator = stream.spliterator();
+        int characteristics = spliterator.characteristics() & ~(Spliterator.SIZED | Spliterator.SUBSIZED);
+        return StreamSupport.stream(new Spliterators.AbstractSpliterator<T>(spliterator.estimateSize(), characteristics) {
+            @Override
+            public boolean tryAdvance(Consumer<? super T> action) {
+                return !future.isDone() && spliterator.tryAdvance(action);
+            }
+        }, false).onClose(stream::close);
+    }
+
+    /**
+     * 节点的订阅关系。
+     * <p>
+     * 请求的数目从 0 变为正数时，提交一个推送任务到执行器，推送任务持续推送直到满足请求的数目，
+     * 同一时刻最多只有一个推送任务，因此订阅者的回调不会并发执行。
+     */
+    private final class NodeSubscription implements Subscription, Runnable {
+
+        private final Subscriber<? super T> subscriber;
+        private final Supplier<? extends Stream<T>> source;
+        /** 只在推送任务中访问，结束（完成、取消或出错）时关闭 */
+        private Stream<T> stream;
+        private Iterator<T> iterator;
+        private final AtomicLong requested = new AtomicLong();
+        /** 推送任务需要处理的信号数目，大于 0 时推送任务正在执行或已提交 */
+        private final AtomicInteger signals = new AtomicInteger();
+        private volatile boolean cancelled;
+        private volatile Throwable error;
+
+        NodeSubscription(Subscriber<? super T> subscriber, Supplier<? extends Stream<T>> source) {
+            this.subscriber = subscriber;
+            this.source = source;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                error = new IllegalArgumentException(String.format("请求的数目[%s]必须大于 0", n));
+            } else {
+                requested.getAndUpdate(value -> value + n < 0 ? Long.MAX_VALUE : value + n);
+            }
+            signal();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            signal();
+        }
+
+        private void signal() {
+            if (signals.getAndIncrement() != 0) return;
+            try {
+                executor.execute(this);
+            } catch (RejectedExecutionException e) {
+                cancelled = true;
+                subscriber.onError(e);
+            }
+        }
+
+        @Override
+        public void run() {
+            int missed = 1;
+            do {
+                drain();
+                missed = signals.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void drain() {
+            if (cancelled) {
+                close();
+                return;
+            }
+            try {
+                if (error != null) throw error;
+                if (iterator == null) iterator = (stream = source.get()).iterator();
+                long limit = requested.get(), emitted = 0;
+                while (emitted < limit && !cancelled && iterator.hasNext()) {
+                    subscriber.onNext(iterator.next());
+                    if (++emitted == limit) {
+                        limit = requested.addAndGet(-emitted);
+                        emitted = 0;
+                    }
+                }
+                if (cancelled) {
+                    close();
+                } else if (!iterator.hasNext()) {
+                    cancelled = true;
+                    close();
+                    subscriber.onComplete();
+                } else {
+                    requested.addAndGet(-emitted);
+                }
+            } catch (Throwable e) {
+                cancelled = true;
+                try {
+                    close();
+                } catch (Throwable suppressed) {
+                    e.addSuppressed(suppressed);
+                }
+                subscriber.onError(e);
+            }
+        }
+
+        /** 关闭节点流，只在推送任务中调用 */
+        private void close() {
+            iterator = null;
+            Stream<T> stream = this.stream;
+            this.stream = null;
+            if (stream != null) stream.close();
+        }
+    }
+
+    /**
+     * 发布者，语义与 {@code java.util.concurrent.Flow.Publisher} 相同
+     *
+     * @param <T> 节点
+     */
+    @FunctionalInterface
+    public interface Publisher<T> {
+        /**
+         * 添加订阅者，订阅者通过{@link Subscriber#onSubscribe(Subscription)}获取订阅关系后请求节点
+         *
+         * @param subscriber 订阅者
+         */
+        void subscribe(Subscriber<? super T> subscriber);
+    }
+
+    /**
+     * 订阅者，语义与 {@code java.util.concurrent.Flow.Subscriber} 相同
+     *
+     * @param <T> 节点
+     */
+    public interface Subscriber<T> {
+        /** 订阅成功，之后通过订阅关系请求节点 */
+        void onSubscribe(Subscription subscription);
+
+        /** 接收一个节点，接收的数目不超过请求的数目 */
+        void onNext(T item);
+
+        /** 遍历出错，之后不会再收到任何信号 */
+        void onError(Throwable throwable);
+
+        /** 遍历完成，之后不会再收到任何信号 */
+        void onComplete();
+    }
+
+    /** 订阅关系，语义与 {@code java.util.concurrent.Flow.Subscription} 相同 */
+    public interface Subscription {
+        /**
+         * 请求更多的节点
+         *
+         * @param n 请求的数目，必须大于 0，否则通过{@link Subscriber#onError(Throwable)}报告错误
+         */
+        void request(long n);
+
+        /** 取消订阅，遍历会尽快停止 */
+        void cancel();
+    }
+
+}
@@ -0,0 +1,148 @@
+package com.github.peacetrue.tree;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * 节点属性的二级索引，按属性值记录节点在先序序列中的位置，位置按升序排列。
+ * <p>
+ * 一个节点的子树在先序序列中占据连续的区间，因此查询某个节点下指定属性值的节点，
+ * 只需在该属性值的位置数组中二分查找子树区间的边界，而不需要遍历子树：
+ * <ul>
+ * <li>{@link #count(Object, Object)}：O(log 该属性值的节点数)</li>
+ * <li>{@link #query(Object, Object, int, int)}：O(log 该属性值的节点数 + 返回的节点数)</li>
+ * </ul>
+ * 例如：查询某个模块下所有启用的菜单。
+ * <p>
+ * 注意事项：
+ * <ul>
+ * <li>索引基于构造时树的快照，之后对树的修改不会反映到索引中，需要重新构造索引</li>
+ * <li>属性值需要正确实现{@link Object#hashCode()}和{@link Object#equals(Object)}，可以为 {@code null}</li>
+ * <li>索引不可修改且线程安全</li>
+ * </ul>
+ *
+ * @param <T> 节点
+ * @param <A> 属性值
+ * @author xiayx
+ * @see Tree#query(Object, Predicate, int, int)
+ */
+public class AttributeIndex<T, A> {
+
+    private final SnapshotTree<T> tree;
+    /** 属性值对应的先序位置 */
+    private final Map<A, int[]> positions;
+
+    /**
+     * @param tree      树，索引基于其快照构造
+     * @param attribute 节点的属性值
+     */
+    public AttributeIndex(Tree<T> tree, Function<? super T, ? extends A> attribute) {
+        this.tree = tree.freeze();
+        Objects.requireNonNull(attribute);
+        Map<A, Positions> builders = new HashMap<>();
+        int position = this.tree.getRoot().map(this.tree::positionOf).orElse(0);
+        for (T node : this.tree.getNodes()) {
+            builders.computeIfAbsent(attribute.apply(node), value -> new Positions()).add(position++);
+        }
+        Map<A, int[]> positions = new HashMap<>(builders.size() * 4 / 3 + 1);
+        builders.forEach((value, builder) -> positions.put(value, Arrays.copyOf(builder.array, builder.size)));
+        this.positions = positions;
+    }
+
+    /** @return 被索引的快照树 */
+    public SnapshotTree<T> getTree() {
+        return tree;
+    }
+
+    /** @return 所有的属性值 */
+    public Set<A> getValues() {
+        return Collections.unmodifiableSet(positions.keySet());
+    }
+
+    /**
+     * 统计以指定节点为根节点的子树中，属性值等于指定值的节点数目
+     *
+     * @param scope 查询范围的根节点，也参与匹配
+     * @param value 属性值
+     * @return 节点数目
+     * @throws NodeAbsentException 如果指定节点不存在于树中
+     */
+    public int count(T scope, A value) throws NodeAbsentException {
+        int position = tree.positionOf(scope);
+        int[] array = positions.get(value);
+        if (array == null) return 0;
+        return lowerBound(array, tree.endOf(position)) - lowerBound(array, position);
+    }
+
+    /**
+     * 分页查询以指定节点为根节点的子树中，属性值等于指定值的节点，按先序排列
+     *
+     * @param scope  查询范围的根节点，也参与匹配
+     * @param value  属性值
+     * @param offset 跳过的节点数目
+     * @param limit  最多返回的节点数目
+     * @return 满足条件的节点
+     * @throws NodeAbsentException      如果指定节点不存在于树中
+     * @throws IllegalArgumentException 如果跳过的数目或者返回的数目小于 0
+     */
+    public List<T> query(T scope, A value, int offset, int limit) throws NodeAbsentException {
+        if (offset < 0 || limit < 0) throw new IllegalArgumentException(String.format("分页参数[%s, %s]不能小于 0", offset, limit));
+        int position = tree.positionOf(scope);
+        int[] array = positions.get(value);
+        List<T> nodes = new ArrayList<>();
+        if (array == null) return nodes;
+        int from = lowerBound(array, position), to = lowerBound(array, tree.endOf(position));
+        int start = (int) Math.min(to, (long) from + offset), end = (int) Math.min(to, (long) start + limit);
+        for (int i = start; i < end; i++) nodes.add(tree.nodeAt(array[i]));
+        return nodes;
+    }
+
+    /**
+     * 分页查询以指定节点为根节点的子树中，属性值等于指定值且满足条件的节点，按先序排列。
+     * <p>
+     * 只对属性值等于指定值的节点判断条件，不遍历子树中的其他节点。
+     *
+     * @param scope     查询范围的根节点，也参与匹配
+     * @param value     属性值
+     * @param predicate 其他查询条件
+     * @param offset    跳过的节点数目
+     * @param limit     最多返回的节点数目
+     * @return 满足条件的节点
+     * @throws NodeAbsentException      如果指定节点不存在于树中
+     * @throws IllegalArgumentException 如果跳过的数目或者返回的数目小于 0
+     */
+    public List<T> query(T scope, A value, Predicate<? super T> predicate, int offset, int limit) throws NodeAbsentException {
+        if (offset < 0 || limit < 0) throw new IllegalArgumentException(String.format("分页参数[%s, %s]不能小于 0", offset, limit));
+        int position = tree.positionOf(scope);
+        int[] array = positions.get(value);
+        List<T> nodes = new ArrayList<>();
+        if (array == null) return nodes;
+        int skipped = 0;
+        for (int i = lowerBound(array, position), to = lowerBound(array, tree.endOf(position)); i < to && nodes.size() < limit; i++) {
+            T node = tree.nodeAt(array[i]);
+            if (!predicate.test(node)) continue;
+            if (skipped < offset) skipped++;
+            else nodes.add(node);
+        }
+        return nodes;
+    }
+
+    /** 构造索引时使用的可变长位置数组 */
+    private static final class Positions {
+        private int[] array = new int[4];
+        private int size;
+
+        void add(int position) {
+            if (size == array.length) array = Arrays.copyOf(array, size * 2);
+            array[size++] = position;
+        }
+    }
+
+    /** 第一个不小于指定位置的下标 */
+    private static int lowerBound(int[] array, int position) {
+        int index = Arrays.binarySearch(array, position);
+        return index < 0 ? -index - 1 : index;
+    }
+
+}
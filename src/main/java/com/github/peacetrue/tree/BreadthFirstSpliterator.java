@@ -0,0 +1,51 @@
+package com.github.peacetrue.tree;
+
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * 广度优先遍历的迭代器。
+ * <p>
+ * 遍历时才获取子节点，队列中保存待遍历的子节点列表。
+ * 同一层级的节点与其子辈节点交错输出，无法按前缀分割，因此不支持分割。
+ *
+ * @author xiayx
+ */
+final class BreadthFirstSpliterator<T> extends Spliterators.AbstractSpliterator<T> {
+
+    private final Function<? super T, List<T>> children;
+    /** 待遍历的子节点列表 */
+    private final Deque<Iterator<T>> queue = new ArrayDeque<>();
+
+    /**
+     * @param children 获取子节点的函数
+     * @param node     起始节点，包含在遍历结果中
+     */
+    BreadthFirstSpliterator(Function<? super T, List<T>> children, T node) {
+        super(Long.MAX_VALUE, ORDERED | DISTINCT | NONNULL);
+        this.children = children;
+        this.queue.add(Collections.singletonList(Objects.requireNonNull(node)).iterator());
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super T> action) {
+        while (!queue.isEmpty()) {
+            Iterator<T> iterator = queue.peek();
+            if (iterator.hasNext()) {
+                T node = iterator.next();
+                List<T> children = this.children.apply(node);
+                if (!children.isEmpty()) queue.add(children.iterator());
+                action.accept(node);
+                return true;
+            }
+            queue.poll();
+        }
+        return false;
+    }
+
+    @Override
+    public Spliterator<T> trySplit() {
+        return null;
+    }
+}
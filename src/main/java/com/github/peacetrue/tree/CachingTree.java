@@ -0,0 +1,248 @@
+package com.github.peacetrue.tree;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * 缓存树，包装其他树并缓存父辈节点、子节点和子辈节点的查询结果，
+ * 适用于反复查询少量热点节点、且被包装的树查询开销较大的场景，例如：{@link GenericTree}。
+ * <p>
+ * 每类结果各自按最近最少使用的策略淘汰，最多缓存指定数目的节点。
+ * 修改节点时直接通过被包装的树查询受影响的节点，不计入命中次数，也不占用缓存。
+ * 修改节点时只失效受影响的缓存：
+ * <ul>
+ * <li>添加节点：父节点的子节点、所有父辈节点的子辈节点</li>
+ * <li>删除节点：父节点的子节点、所有父辈节点的子辈节点，以及被删除节点自身的缓存</li>
+ * <li>移动节点：新旧父辈节点的子节点和子辈节点，以及被移动分支中所有节点的父辈节点</li>
+ * </ul>
+ * <p>
+ * 注意事项：
+ * <ul>
+ * <li>缓存的查询结果不可修改</li>
+ * <li>只能通过缓存树修改节点，直接修改被包装的树会导致缓存失效不及时</li>
+ * <li>不支持并发操作</li>
+ * </ul>
+ *
+ * @author xiayx
+ */
+public class CachingTree<T> implements Tree<T> {
+
+    private final Tree<T> tree;
+    private final Map<T, List<T>> parents, children, younger;
+    private long hits, misses;
+
+    /**
+     * @param tree    被包装的树
+     * @param maxSize 每类查询结果最多缓存的节点数目
+     */
+    public CachingTree(Tree<T> tree, int maxSize) {
+        if (maxSize <= 0) throw new IllegalArgumentException(String.format("缓存数目[%s]必须大于 0", maxSize));
+        this.tree = Objects.requireNonNull(tree);
+        this.parents = lru(maxSize);
+        this.children = lru(maxSize);
+        this.younger = lru(maxSize);
+    }
+
+    /** @return 被包装的树 */
+    Tree<T> getTree() {
+        return tree;
+    }
+
+    private static <T> Map<T, List<T>> lru(int maxSize) {
+        return new LinkedHashMap<T, List<T>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<T, List<T>> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /** 获取缓存的结果，不存在时通过被包装的树查询并缓存 */
+    private List<T> cached(Map<T, List<T>> cache, T node, Function<T, List<T>> loader) {
+        List<T> value = cache.get(node);
+        if (value != null) {
+            hits++;
+            return value;
+        }
+        misses++;
+        value = Collections.unmodifiableList(new ArrayList<>(loader.apply(node)));
+        cache.put(node, value);
+        return value;
+    }
+
+    /** @return 缓存命中次数 */
+    public long getHitCount() {
+        return hits;
+    }
+
+    /** @return 缓存未命中次数 */
+    public long getMissCount() {
+        return misses;
+    }
+
+    /** 清空所有缓存 */
+    public void clear() {
+        parents.clear();
+        children.clear();
+        younger.clear();
+    }
+
+    @Override
+    public Optional<T> getRoot() {
+        return tree.getRoot();
+    }
+
+    @Override
+    public Collection<T> getNodes() {
+        return tree.getNodes();
+    }
+
+    @Override
+    public boolean contains(T node) {
+        return tree.contains(node);
+    }
+
+    @Override
+    public Optional<T> findParent(T node) {
+        List<T> parents = this.parents.get(node);
+        if (parents == null) {
+            misses++;
+            return tree.findParent(node);
+        }
+        hits++;
+        return parents.isEmpty() ? Optional.empty() : Optional.of(parents.get(parents.size() - 1));
+    }
+
+    @Override
+    public List<T> findParents(T node) {
+        return cached(parents, node, tree::findParents);
+    }
+
+    @Override
+    public boolean isAncestorOf(T ancestor, T node) {
+        return tree.isAncestorOf(ancestor, node);
+    }
+
+    @Override
+    public List<T> findChildren(T node) {
+        return cached(children, node, tree::findChildren);
+    }
+
+    @Override
+    public List<T> findYounger(T node) {
+        return cached(younger, node, tree::findYounger);
+    }
+
+    @Override
+    public int depth(T node) {
+        return tree.depth(node);
+    }
+
+    @Override
+    public int size(T node) {
+        return tree.size(node);
+    }
+
+    @Override
+    public int height() {
+        return tree.height();
+    }
+
+    @Override
+    public List<T> nodesAtLevel(int level) {
+        return tree.nodesAtLevel(level);
+    }
+
+    @Override
+    public boolean isLeaf(T node) {
+        return tree.isLeaf(node);
+    }
+
+    @Override
+    public long hash(T node) {
+        return tree.hash(node);
+    }
+
+    @Override
+    public void addNode(T node) {
+        tree.addNode(node);
+        invalidateAdded(Collections.singletonList(node));
+    }
+
+    @Override
+    public void addNodes(Collection<T> nodes) {
+        tree.addNodes(nodes);
+        invalidateAdded(nodes);
+    }
+
+    @Override
+    public void removeNode(T node) {
+        List<T> ancestors = tree.findParents(node), branch = branchOf(node);
+        tree.removeNode(node);
+        invalidateRemoved(ancestors, branch);
+    }
+
+    @Override
+    public Tree<T> detach(T node) {
+        List<T> ancestors = tree.findParents(node), branch = branchOf(node);
+        Tree<T> detached = tree.detach(node);
+        invalidateRemoved(ancestors, branch);
+        return detached;
+    }
+
+    @Override
+    public void moveNode(T node, T parent) {
+        List<T> ancestors = tree.findParents(node), branch = branchOf(node);
+        tree.moveNode(node, parent);
+        invalidateRemoved(ancestors, branch);
+        invalidateAdded(Collections.singletonList(node));
+    }
+
+    /** 指定节点所在分支的所有节点，指定节点位于首位，直接通过被包装的树查询，不读写缓存 */
+    private List<T> branchOf(T node) {
+        if (!tree.contains(node)) throw new NodeAbsentException(node);
+        List<T> branch = new ArrayList<>(tree.findYounger(node));
+        branch.add(0, node);
+        return branch;
+    }
+
+    /** 失效新添加节点自身的缓存，及其父节点的子节点和所有父辈节点的子辈节点 */
+    private void invalidateAdded(Collection<T> nodes) {
+        for (T node : nodes) {
+            remove(node);
+            List<T> ancestors = tree.findParents(node);
+            if (!ancestors.isEmpty()) children.remove(ancestors.get(ancestors.size() - 1));
+            ancestors.forEach(younger::remove);
+        }
+    }
+
+    /** 失效被删除分支中所有节点的缓存，及分支根节点的父节点的子节点和所有父辈节点的子辈节点 */
+    private void invalidateRemoved(List<T> ancestors, List<T> branch) {
+        branch.forEach(this::remove);
+        if (!ancestors.isEmpty()) children.remove(ancestors.get(ancestors.size() - 1));
+        ancestors.forEach(younger::remove);
+    }
+
+    /** 失效节点自身的缓存 */
+    private void remove(T node) {
+        parents.remove(node);
+        children.remove(node);
+        younger.remove(node);
+    }
+
+    @Override
+    public Tree<T> subtree(T node) {
+        return tree.subtree(node);
+    }
+
+    @Override
+    public Tree<T> localTree(Collection<T> nodes) {
+        return tree.localTree(nodes);
+    }
+
+    @Override
+    public SnapshotTree<T> freeze() {
+        return tree.freeze();
+    }
+
+}
@@ -0,0 +1,227 @@
+package com.github.peacetrue.tree;
+
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * 并发树，适用于大量线程并发读取、少量线程修改的场景。
+ * <p>
+ * 采用写时复制：修改操作在内部的{@link IndexedTree}上串行执行，完成后发布一个新的{@link SnapshotTree}，
+ * 读取操作直接访问当前发布的快照，不需要加锁，也不会被修改操作阻塞。
+ * <ul>
+ * <li>单次读取（包括遍历返回的流）总是基于某个已发布的版本，不会看到修改的中间状态</li>
+ * <li>需要跨多次读取保持一致时，通过{@link #freeze()}获取当前版本的快照后再读取</li>
+ * <li>每次修改完成后都会复制整颗树发布新版本，O(n)；批量修改时使用{@link #update(Consumer)}或{@link #addNodes(Collection)}，只发布一次</li>
+ * <li>修改在改动树之后失败时，需要从当前版本复制整颗树恢复，同样为 O(n)；在改动树之前失败（例如校验失败）或者没有改动树时，不复制也不发布</li>
+ * </ul>
+ *
+ * @author xiayx
+ */
+public class ConcurrentTree<T> implements Tree<T> {
+
+    private final RootPredicate<T> rootPredicate;
+    private final RelationPredicate<T> relationPredicate;
+    /** 修改操作使用的树，只在持有锁时访问 */
+    private IndexedTree<T> master;
+    /** 当前发布的版本 */
+    private volatile SnapshotTree<T> snapshot;
+
+    /** 初始化空树，后续可通过 {@link #addNode(Object)} 添加节点 */
+    public ConcurrentTree(RootPredicate<T> rootPredicate, RelationPredicate<T> relationPredicate) {
+        this(rootPredicate, relationPredicate, new IndexedTree<>(rootPredicate, relationPredicate));
+    }
+
+    /** 初始化带节点的树 */
+    public ConcurrentTree(RootPredicate<T> rootPredicate, RelationPredicate<T> relationPredicate, Collection<T> nodes) {
+        this(rootPredicate, relationPredicate, new IndexedTree<>(rootPredicate, relationPredicate, nodes));
+    }
+
+    /** 初始化空树，通过主键关联节点 */
+    public ConcurrentTree(KeyPredicate<T, ?> keyPredicate) {
+        this(keyPredicate, keyPredicate);
+    }
+
+    /** 初始化带节点的树，通过主键关联节点 */
+    public ConcurrentTree(KeyPredicate<T, ?> keyPredicate, Collection<T> nodes) {
+        this(keyPredicate, keyPredicate, nodes);
+    }
+
+    private ConcurrentTree(RootPredicate<T> rootPredicate, RelationPredicate<T> relationPredicate, IndexedTree<T> master) {
+        this.rootPredicate = Objects.requireNonNull(rootPredicate);
+        this.relationPredicate = Objects.requireNonNull(relationPredicate);
+        this.master = master;
+        this.snapshot = master.freeze();
+    }
+
+    /**
+     * 在一次修改中执行多个操作，完成后发布一个新版本。
+     * <p>
+     * 操作抛出异常时丢弃本次修改的所有操作，当前版本保持不变。
+     * 传入的树只能在操作中使用，不能被外部保存。
+     * <p>
+     * 操作改动了树时，成功后复制整颗树发布新版本，失败后从当前版本复制整颗树恢复，都在锁内执行，O(n)；
+     * 没有改动树时直接返回，O(1)。
+     *
+     * @param updater 修改操作
+     */
+    public synchronized void update(Consumer<? super Tree<T>> updater) {
+        int modCount = master.getModCount();
+        try {
+            updater.accept(master);
+        } catch (RuntimeException | Error e) {
+            if (master.getModCount() != modCount) master = IndexedTree.copyOf(snapshot, rootPredicate, relationPredicate);
+            throw e;
+        }
+        if (master.getModCount() != modCount) snapshot = master.freeze();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @return 当前发布的版本，O(1)
+     */
+    @Override
+    public SnapshotTree<T> freeze() {
+        return snapshot;
+    }
+
+    @Override
+    public Optional<T> getRoot() {
+        return snapshot.getRoot();
+    }
+
+    @Override
+    public Collection<T> getNodes() {
+        return snapshot.getNodes();
+    }
+
+    @Override
+    public boolean contains(T node) {
+        return snapshot.contains(node);
+    }
+
+    @Override
+    public Optional<T> findParent(T node) {
+        return snapshot.findParent(node);
+    }
+
+    @Override
+    public List<T> findParents(T node) {
+        return snapshot.findParents(node);
+    }
+
+    @Override
+    public boolean isAncestorOf(T ancestor, T node) {
+        return snapshot.isAncestorOf(ancestor, node);
+    }
+
+    @Override
+    public List<T> findChildren(T node) {
+        return snapshot.findChildren(node);
+    }
+
+    @Override
+    public List<T> findYounger(T node) {
+        return snapshot.findYounger(node);
+    }
+
+    @Override
+    public int depth(T node) {
+        return snapshot.depth(node);
+    }
+
+    @Override
+    public int size(T node) {
+        return snapshot.size(node);
+    }
+
+    @Override
+    public int height() {
+        return snapshot.height();
+    }
+
+    @Override
+    public List<T> nodesAtLevel(int level) {
+        return snapshot.nodesAtLevel(level);
+    }
+
+    @Override
+    public boolean isLeaf(T node) {
+        return snapshot.isLeaf(node);
+    }
+
+    @Override
+    public long hash(T node) {
+        return snapshot.hash(node);
+    }
+
+    @Override
+    public List<T> query(T scope, Predicate<? super T> predicate, int offset, int limit) {
+        return snapshot.query(scope, predicate, offset, limit);
+    }
+
+    @Override
+    public Stream<T> stream() {
+        return snapshot.stream();
+    }
+
+    @Override
+    public Stream<T> preOrder(T node) {
+        return snapshot.preOrder(node);
+    }
+
+    @Override
+    public Stream<T> preOrder(T node, int maxDepth) {
+        return snapshot.preOrder(node, maxDepth);
+    }
+
+    @Override
+    public Stream<T> postOrder(T node) {
+        return snapshot.postOrder(node);
+    }
+
+    @Override
+    public Stream<T> breadthFirst(T node) {
+        return snapshot.breadthFirst(node);
+    }
+
+    @Override
+    public void addNode(T node) {
+        update(tree -> tree.addNode(node));
+    }
+
+    @Override
+    public void addNodes(Collection<T> nodes) {
+        update(tree -> tree.addNodes(nodes));
+    }
+
+    @Override
+    public void removeNode(T node) {
+        update(tree -> tree.removeNode(node));
+    }
+
+    @Override
+    public void moveNode(T node, T parent) {
+        update(tree -> tree.moveNode(node, parent));
+    }
+
+    @Override
+    public Tree<T> detach(T node) {
+        List<Tree<T>> branch = new ArrayList<>(1);
+        update(tree -> branch.add(tree.detach(node)));
+        return branch.get(0);
+    }
+
+    @Override
+    public SnapshotTree<T> subtree(T node) {
+        return snapshot.subtree(node);
+    }
+
+    @Override
+    public SnapshotTree<T> localTree(Collection<T> nodes) {
+        return snapshot.localTree(nodes);
+    }
+
+}
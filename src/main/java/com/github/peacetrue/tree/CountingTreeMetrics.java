@@ -0,0 +1,140 @@
+package com.github.peacetrue.tree;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 基于计数器的度量指标，记录每种操作的调用次数、总耗时、最大耗时，以及耗时和结果大小的分布。
+ * <p>
+ * 计数器使用{@link LongAdder}，多线程同时记录时分散到不同的单元，竞争较小，适合在生产环境中长期开启。
+ * 分布使用以 2 为底的对数分桶：第 0 个桶记录 0，第 k 个桶记录 [2<sup>k-1</sup>, 2<sup>k</sup>) 内的值。
+ * <p>
+ * 读取的指标是近似的快照，读取期间仍在进行的记录可能只有部分可见。
+ *
+ * @author xiayx
+ */
+public class CountingTreeMetrics implements TreeMetrics {
+
+    /** 分桶数目，覆盖所有非负的 long 值 */
+    static final int BUCKETS = 64;
+
+    /** 按{@link Operation#ordinal()}存放的操作指标 */
+    private final OperationMetrics[] operations = new OperationMetrics[Operation.values().length];
+    private final LongAdder rootPredicates = new LongAdder(), relationPredicates = new LongAdder();
+    private volatile int size, height;
+
+    public CountingTreeMetrics() {
+        for (int i = 0; i < operations.length; i++) operations[i] = new OperationMetrics();
+    }
+
+    /** 单个操作的指标 */
+    private static final class OperationMetrics {
+        private final LongAdder count = new LongAdder(), nanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+        private final LongAdder[] latencies = buckets(), resultSizes = buckets();
+    }
+
+    private static LongAdder[] buckets() {
+        LongAdder[] buckets = new LongAdder[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) buckets[i] = new LongAdder();
+        return buckets;
+    }
+
+    /** 值所在的桶 */
+    static int bucket(long value) {
+        return Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(Math.max(0, value)));
+    }
+
+    private static long[] sum(LongAdder[] adders) {
+        long[] values = new long[adders.length];
+        for (int i = 0; i < adders.length; i++) values[i] = adders[i].sum();
+        return values;
+    }
+
+    @Override
+    public void recordOperation(Operation operation, long nanos, int resultSize) {
+        OperationMetrics metrics = operations[operation.ordinal()];
+        metrics.count.increment();
+        metrics.nanos.add(nanos);
+        metrics.maxNanos.accumulate(nanos);
+        metrics.latencies[bucket(nanos)].increment();
+        if (resultSize >= 0) metrics.resultSizes[bucket(resultSize)].increment();
+    }
+
+    @Override
+    public void recordRootPredicate() {
+        rootPredicates.increment();
+    }
+
+    @Override
+    public void recordRelationPredicate() {
+        relationPredicates.increment();
+    }
+
+    @Override
+    public void recordShape(int size, int height) {
+        this.size = size;
+        this.height = height;
+    }
+
+    /** @return 操作的调用次数 */
+    public long getCount(Operation operation) {
+        return operations[operation.ordinal()].count.sum();
+    }
+
+    /** @return 操作的总耗时，单位纳秒 */
+    public long getTotalNanos(Operation operation) {
+        return operations[operation.ordinal()].nanos.sum();
+    }
+
+    /** @return 操作的最大耗时，单位纳秒 */
+    public long getMaxNanos(Operation operation) {
+        return operations[operation.ordinal()].maxNanos.get();
+    }
+
+    /** @return 操作耗时的分布，下标为桶 */
+    public long[] getLatencyHistogram(Operation operation) {
+        return sum(operations[operation.ordinal()].latencies);
+    }
+
+    /** @return 操作结果大小的分布，下标为桶 */
+    public long[] getResultSizeHistogram(Operation operation) {
+        return sum(operations[operation.ordinal()].resultSizes);
+    }
+
+    /** @return 根节点判断的调用次数 */
+    public long getRootPredicateCount() {
+        return rootPredicates.sum();
+    }
+
+    /** @return 节点关系判断的调用次数 */
+    public long getRelationPredicateCount() {
+        return relationPredicates.sum();
+    }
+
+    /** @return 最近记录的节点数目 */
+    public int getSize() {
+        return size;
+    }
+
+    /** @return 最近记录的高度 */
+    public int getHeight() {
+        return height;
+    }
+
+    /** 清空所有计数器及最近记录的形状 */
+    public void reset() {
+        for (OperationMetrics metrics : operations) {
+            metrics.count.reset();
+            metrics.nanos.reset();
+            metrics.maxNanos.reset();
+            for (LongAdder adder : metrics.latencies) adder.reset();
+            for (LongAdder adder : metrics.resultSizes) adder.reset();
+        }
+        rootPredicates.reset();
+        relationPredicates.reset();
+        size = 0;
+        height = 0;
+    }
+
+}
@@ -0,0 +1,31 @@
+package com.github.peacetrue.tree;
+
+import java.util.Objects;
+
+/**
+ * 节点不能移动到自身或其子辈节点下，否则节点关系会成环
+ *
+ * @author xiayx
+ */
+public class CyclicMoveException extends RuntimeException {
+
+    private Object node;
+    private Object parent;
+
+    public CyclicMoveException(Object node, Object parent) {
+        super(String.format("节点[%s]不能移动到自身或其子辈节点[%s]下", node, parent));
+        this.node = Objects.requireNonNull(node);
+        this.parent = Objects.requireNonNull(parent);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T getNode() {
+        return (T) node;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T getParent() {
+        return (T) parent;
+    }
+
+}
@@ -0,0 +1,137 @@
+package com.github.peacetrue.tree;
+
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * 深度优先遍历的可分割迭代器，支持先序和后序，不使用递归。
+ * <p>
+ * 遍历时才获取子节点，栈中只保存当前路径上每一层的子节点列表。
+ * 分割时保留栈底层级中后一半的子节点，前缀（栈中其余层级及栈底的前一半子节点）交给新的迭代器，
+ * 因此分割后的迭代器仍然保持遍历顺序。
+ *
+ * @author xiayx
+ */
+final class DepthFirstSpliterator<T> implements Spliterator<T> {
+
+    private final Function<? super T, List<T>> children;
+    private final boolean postOrder;
+    private final int maxDepth;
+    /** 栈顶是当前遍历的层级 */
+    private Deque<Frame<T>> stack;
+    /** 估算的节点数，每次分割减半，用于限制分割次数 */
+    private long estimate;
+
+    /**
+     * @param children  获取子节点的函数
+     * @param node      起始节点，包含在遍历结果中
+     * @param postOrder 是否后序遍历
+     * @param maxDepth  相对于起始节点的最大深度，起始节点的深度为 0
+     */
+    DepthFirstSpliterator(Function<? super T, List<T>> children, T node, boolean postOrder, int maxDepth) {
+        this(children, postOrder, maxDepth, new ArrayDeque<>(), Long.MAX_VALUE);
+        stack.push(new Frame<>(null, Collections.singletonList(Objects.requireNonNull(node)), 0, 1, 0));
+    }
+
+    private DepthFirstSpliterator(Function<? super T, List<T>> children, boolean postOrder, int maxDepth, Deque<Frame<T>> stack, long estimate) {
+        this.children = children;
+        this.postOrder = postOrder;
+        this.maxDepth = maxDepth;
+        this.stack = stack;
+        this.estimate = estimate;
+    }
+
+    /** 一个层级，包含待遍历的子节点区间 [index, end) */
+    private static final class Frame<T> {
+        /** 后序遍历时，子节点遍历完成后输出的父节点；先序遍历时为{@code null} */
+        final T node;
+        final List<T> children;
+        int index;
+        final int end;
+        /** 子节点的深度 */
+        final int depth;
+
+        Frame(T node, List<T> children, int index, int end, int depth) {
+            this.node = node;
+            this.children = children;
+            this.index = index;
+            this.end = end;
+            this.depth = depth;
+        }
+    }
+
+    private List<T> findChildren(T node, int depth) {
+        return depth < maxDepth ? children.apply(node) : Collections.emptyList();
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super T> action) {
+        while (!stack.isEmpty()) {
+            Frame<T> frame = stack.peek();
+            if (frame.index < frame.end) {
+                T child = frame.children.get(frame.index++);
+                List<T> children = findChildren(child, frame.depth);
+                if (postOrder) {
+                    stack.push(new Frame<>(child, children, 0, children.size(), frame.depth + 1));
+                } else {
+                    if (!children.isEmpty()) stack.push(new Frame<>(null, children, 0, children.size(), frame.depth + 1));
+                    action.accept(child);
+                    return true;
+                }
+            } else {
+                stack.pop();
+                if (frame.node != null) {
+                    action.accept(frame.node);
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public Spliterator<T> trySplit() {
+        // 丢弃栈底已遍历完成的层级
+        while (stack.size() > 1 && stack.peekLast().index == stack.peekLast().end && stack.peekLast().node == null) {
+            stack.pollLast();
+        }
+        Frame<T> bottom = stack.peekLast();
+        if (bottom == null) return null;
+        int remaining = bottom.end - bottom.index;
+        if (stack.size() == 1 && remaining == 1 && bottom.node == null) {
+            // 只剩一个节点，展开其子节点后再分割
+            T node = bottom.children.get(bottom.index);
+            List<T> children = findChildren(node, bottom.depth);
+            if (children.isEmpty() || (postOrder && children.size() == 1)) return null;
+            stack.pop();
+            stack.push(new Frame<>(postOrder ? node : null, children, 0, children.size(), bottom.depth + 1));
+            if (!postOrder) {
+                estimate >>>= 1;
+                return Collections.singletonList(node).spliterator();
+            }
+            bottom = stack.peekLast();
+            remaining = bottom.end - bottom.index;
+        }
+        if (stack.size() == 1 && remaining < 2) return null;
+
+        int middle = remaining < 2 ? bottom.index : (bottom.index + bottom.end) >>> 1;
+        Deque<Frame<T>> prefix = stack;
+        prefix.pollLast();
+        if (middle > bottom.index) prefix.addLast(new Frame<>(null, bottom.children, bottom.index, middle, bottom.depth));
+        bottom.index = middle;
+        stack = new ArrayDeque<>();
+        stack.push(bottom);
+        return new DepthFirstSpliterator<>(children, postOrder, maxDepth, prefix, estimate >>>= 1);
+    }
+
+    @Override
+    public long estimateSize() {
+        return estimate;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | DISTINCT | NONNULL;
+    }
+}
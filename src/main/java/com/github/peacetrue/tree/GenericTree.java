@@ -8,6 +8,10 @@ import java.util.stream.Collectors;
  * 泛化树，节点可使用任意类型，
  * 但需要通过{@link RootPredicate}指定根节点，{@link RelationPredicate}指定节点之间的关系.
  * <p>
+ * 查找共同父节点时，如果已缓存当前树的{@link SnapshotTree}或者可以通过{@link KeyPredicate}以线性复杂度构造快照，
+ * 通过快照查找，添加或删除节点后快照失效，在下次查找时重新构造；否则比较各节点的父辈节点路径，不构造快照。
+ * 查询深度、子树大小和层级等时，只在索引已缓存时使用索引，否则直接遍历，不会因查询而重新构造索引。
+ * <p>
  * 注意事项：
  * <ul>
  * <li>同一层级树节点的排序，等同于其添加入树中的顺序</li>
@@ -21,6 +25,8 @@ public class GenericTree<T> implements Tree<T> {
     private ConcurrentLinkedQueue<T> nodes;
     private RootPredicate<T> rootPredicate;
     private RelationPredicate<T> relationPredicate;
+    /** 当前树的快照，节点变化后置空 */
+    private SnapshotTree<T> snapshot;
 
     /** 初始化空树，后续可通过 {@link #addNode(Object)} 添加节点 */
     public GenericTree(RootPredicate<T> rootPredicate, RelationPredicate<T> relationPredicate) {
@@ -35,6 +41,11 @@ public class GenericTree<T> implements Tree<T> {
         this.setNodes(nodes);
     }
 
+    /** 初始化带节点的树，通过主键关联节点，构造时以一次散列连接完成校验 */
+    public GenericTree(KeyPredicate<T, ?> keyPredicate, Collection<T> nodes) {
+        this(keyPredicate, keyPredicate, nodes);
+    }
+
     /** 检查指定节点是否存在于树中，不存在抛出异常 */
     private void checkNodeExist(T node) {
         if (!this.contains(node)) throw new NodeAbsentException(node);
@@ -57,31 +68,43 @@ public class GenericTree<T> implements Tree<T> {
 
     /** 查找多个节点所有共同的父节点 */
     public List<T> findSameParents(Collection<T> nodes) {
-        return findSame(nodes.stream().map(this::findParents).collect(Collectors.toSet()));
+        if (snapshot != null || isKeyed()) return freeze().findSameParents(nodes);
+        List<T> same = null;
+        for (T node : nodes) {
+            List<T> parents = findParents(node);
+            if (same == null) {
+                same = new ArrayList<>(parents);
+                continue;
+            }
+            int common = 0;
+            for (Iterator<T> iterator = parents.iterator(); common < same.size() && iterator.hasNext(); common++) {
+                if (!same.get(common).equals(iterator.next())) break;
+            }
+            same.subList(common, same.size()).clear();
+        }
+        return same == null ? new LinkedList<>() : new LinkedList<>(same);
     }
 
     /** 查找多个节点最近共同的父节点 */
     public Optional<T> findSameParent(Collection<T> nodes) {
+        if (snapshot != null || isKeyed()) return freeze().findSameParent(nodes);
         List<T> parents = findSameParents(nodes);
         return parents.isEmpty() ? Optional.empty() : Optional.of(parents.get(parents.size() - 1));
     }
 
-    private static <T> List<T> findSame(Collection<List<T>> lists) {
-        Optional<Integer> min = lists.stream().map(List::size).min(Integer::compareTo);
-        if (!min.isPresent()) return Collections.emptyList();
+    /** 查找两个节点最近共同的父节点 */
+    public Optional<T> findSameParent(T node, T other) {
+        return findSameParent(Arrays.asList(node, other));
+    }
 
-        List<T> same = new ArrayList<>(min.get());
-        List<T> one = lists.iterator().next();
-        for (int i = 0; i < min.get(); i++) {
-            int _i = i;
-            T element = one.get(i);
-            if (lists.stream().map(list -> list.get(_i)).anyMatch(element::equals)) {
-                same.add(element);
-            } else {
-                break;
-            }
-        }
-        return same;
+    /**
+     * {@inheritDoc}
+     * <p>
+     * 快照已缓存时通过快照判断，复杂度为 O(1)
+     */
+    @Override
+    public boolean isAncestorOf(T ancestor, T node) {
+        return snapshot == null ? Tree.super.isAncestorOf(ancestor, node) : snapshot.isAncestorOf(ancestor, node);
     }
 
     @Override
@@ -91,16 +114,37 @@ public class GenericTree<T> implements Tree<T> {
 
     @Override
     public List<T> findYounger(T node) {
-        List<T> younger = new LinkedList<>();
-        findYounger(younger, node);
-        return younger;
+        return preOrder(node).skip(1).collect(Collectors.toCollection(LinkedList::new));
     }
 
-    private void findYounger(List<T> younger, T node) {
-        findChildren(node).forEach(t -> {
-            younger.add(t);
-            findYounger(younger, t);
-        });
+    @Override
+    public int depth(T node) {
+        return snapshot == null ? Tree.super.depth(node) : snapshot.depth(node);
+    }
+
+    @Override
+    public int size(T node) {
+        return snapshot == null ? Tree.super.size(node) : snapshot.size(node);
+    }
+
+    @Override
+    public int height() {
+        return snapshot == null ? Tree.super.height() : snapshot.height();
+    }
+
+    @Override
+    public List<T> nodesAtLevel(int level) {
+        return snapshot == null ? Tree.super.nodesAtLevel(level) : snapshot.nodesAtLevel(level);
+    }
+
+    @Override
+    public boolean isLeaf(T node) {
+        return snapshot == null ? Tree.super.isLeaf(node) : snapshot.isLeaf(node);
+    }
+
+    @Override
+    public long hash(T node) {
+        return snapshot == null ? Tree.super.hash(node) : snapshot.hash(node);
     }
 
     @Override
@@ -110,9 +154,10 @@ public class GenericTree<T> implements Tree<T> {
 
     @Override
     public void addNode(T node) {
+        snapshot = null;
         if (nodes.isEmpty()) {
             this.setRoot(node);
-        } else if (nodes.contains(node)) {
+        } else if (nodes.contains(node) || containsKey(node)) {
             throw new NodeExistException(node);
         } else if (this.findParent(node).isPresent()) {
             nodes.add(node);
@@ -121,6 +166,46 @@ public class GenericTree<T> implements Tree<T> {
         }
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * 先在一次遍历中校验并排序所有节点，再一次性添加
+     */
+    @Override
+    public void addNodes(Collection<T> nodes) {
+        List<T> sorted;
+        if (relationPredicate instanceof KeyPredicate) {
+            KeyPredicate<T, Object> keyPredicate = keyPredicate();
+            Set<Object> keys = new HashSet<>(this.nodes.size() * 4 / 3 + 1);
+            this.nodes.forEach(t -> keys.add(keyPredicate.getKey(t)));
+            sorted = NodeBatch.sort(this, nodes, rootPredicate, relationPredicate,
+                    node -> keys.contains(keyPredicate.getKey(node)), node -> keys.contains(keyPredicate.getParentKey(node)));
+        } else {
+            Set<T> existing = new HashSet<>(this.nodes);
+            sorted = NodeBatch.sort(this, nodes, rootPredicate, relationPredicate,
+                    existing::contains, node -> findParent(node).isPresent());
+        }
+        snapshot = null;
+        this.nodes.addAll(sorted);
+    }
+
+    /** 是否通过{@link KeyPredicate}同时判断根节点和节点关系，此时可以通过主键散列以线性复杂度构造快照 */
+    private boolean isKeyed() {
+        return relationPredicate instanceof KeyPredicate && rootPredicate == relationPredicate;
+    }
+
+    @SuppressWarnings("unchecked")
+    private KeyPredicate<T, Object> keyPredicate() {
+        return (KeyPredicate<T, Object>) relationPredicate;
+    }
+
+    /** 使用{@link KeyPredicate}时，树中是否已存在与指定节点主键相同的节点 */
+    private boolean containsKey(T node) {
+        if (!(relationPredicate instanceof KeyPredicate)) return false;
+        Object key = keyPredicate().getKey(node);
+        return nodes.stream().anyMatch(t -> Objects.equals(key, keyPredicate().getKey(t)));
+    }
+
     private void setRoot(T node) {
         if (rootPredicate.isRoot(Objects.requireNonNull(node))) {
             nodes.add(node);
@@ -131,6 +216,7 @@ public class GenericTree<T> implements Tree<T> {
 
     private void setNodes(Collection<T> nodes) {
         Objects.requireNonNull(nodes);
+        this.snapshot = null;
         this.nodes.clear();
         this.nodes.addAll(nodes);
         this.checkTreeValid();
@@ -141,38 +227,130 @@ public class GenericTree<T> implements Tree<T> {
         Set<T> roots = nodes.stream().filter(t -> rootPredicate.isRoot(t)).collect(Collectors.toSet());
         if (roots.size() > 1) throw new MultiRootException(roots);
         if (roots.isEmpty()) throw new RootAbsentException();
+        if (relationPredicate instanceof KeyPredicate) {
+            checkParentExist((KeyPredicate<T, ?>) relationPredicate, roots);
+            return;
+        }
         Set<T> nodes = new HashSet<>(this.nodes);
         nodes.removeAll(roots);
         nodes.forEach(t -> findParent(t).orElseThrow(() -> new ParentAbsentException(t)));
     }
 
+    /** 通过主键散列连接检查主键是否唯一、非根节点的父节点是否存在，以及所有节点能否从根节点到达 */
+    private <K> void checkParentExist(KeyPredicate<T, K> keyPredicate, Set<T> roots) {
+        Set<K> keys = new HashSet<>(nodes.size() * 4 / 3 + 1);
+        nodes.forEach(t -> {
+            if (!keys.add(keyPredicate.getKey(t))) throw new NodeExistException(t);
+        });
+        Map<K, List<T>> children = new HashMap<>(nodes.size() * 4 / 3 + 1);
+        nodes.forEach(t -> {
+            if (roots.contains(t)) return;
+            K parentKey = keyPredicate.getParentKey(t);
+            if (!keys.contains(parentKey)) throw new ParentAbsentException(t);
+            children.computeIfAbsent(parentKey, key -> new ArrayList<>()).add(t);
+        });
+        // 节点间的关系成环时，成环的节点无法从根节点到达
+        Set<T> reached = new HashSet<>(nodes.size() * 4 / 3 + 1);
+        Deque<T> queue = new ArrayDeque<>(roots);
+        while (!queue.isEmpty()) {
+            T node = queue.poll();
+            reached.add(node);
+            queue.addAll(children.getOrDefault(keyPredicate.getKey(node), Collections.emptyList()));
+        }
+        for (T node : nodes) {
+            if (!reached.contains(node)) throw new ParentAbsentException(node);
+        }
+    }
+
     @Override
     public void removeNode(T node) {
         boolean remove = nodes.remove(node);
         if (remove) {
-            nodes.removeAll(findYounger(node));
+            snapshot = null;
+            nodes.removeAll(new HashSet<>(findYounger(node)));
         } else {
             throw new NodeAbsentException(node);
         }
     }
 
+    /** 以指定节点为根节点的分支的根节点判断，需要在分离分支前构造 */
+    private RootPredicate<T> branchRoot(T node) {
+        Optional<T> parent = findParent(node);
+        return parent.isPresent() ? RootPredicate.branchOf(relationPredicate, parent.get()) : rootPredicate;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * 分支中的节点在当前树中已经过校验，不再重新校验
+     */
+    @Override
+    public GenericTree<T> detach(T node) {
+        checkNodeExist(node);
+        RootPredicate<T> branchRoot = branchRoot(node);
+        List<T> branch = preOrder(node).collect(Collectors.toList());
+        nodes.removeAll(new HashSet<>(branch));
+        snapshot = null;
+        GenericTree<T> tree = new GenericTree<>(branchRoot, relationPredicate);
+        tree.nodes.addAll(branch);
+        return tree;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * 子树中的节点在当前树中已经过校验，不再重新校验。
+     * 不需要修改子树时，可使用{@link #view(Object)}或者{@code freeze().subtree(node)}避免复制节点
+     */
     @Override
     public GenericTree<T> subtree(T node) {
         checkNodeExist(node);
-        List<T> younger = findYounger(node);
-        younger.add(0, node);
-        return new GenericTree<>(root -> root.equals(node), relationPredicate, younger);
+        GenericTree<T> tree = new GenericTree<>(branchRoot(node), relationPredicate);
+        (snapshot == null ? preOrder(node) : snapshot.preOrder(node)).forEach(tree.nodes::add);
+        return tree;
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * 局部树中的节点在当前树中已经过校验，不再重新校验。
+     * 依次自下而上收集每个节点尚未加入局部树的父辈节点，遇到已加入的节点即停止，共同的父辈节点只处理一次；
+     * 快照已缓存时通过快照查找父节点。
+     * 局部树中的节点按指定节点的顺序排列，每个节点之前是其首次加入的父辈节点，
+     * 因此同一层级节点的排序等同于其在指定节点中首次出现的顺序，与是否缓存快照无关
+     */
     @Override
-    public Tree<T> localTree(Collection<T> nodes) {
+    public GenericTree<T> localTree(Collection<T> nodes) {
         nodes.forEach(this::checkNodeExist);
-        Set<T> elders = nodes.stream().flatMap(t -> {
-            List<T> parents = findParents(t);
-            parents.add(t);
-            return parents.stream();
-        }).collect(Collectors.toCollection(LinkedHashSet::new));
-        return new GenericTree<>(rootPredicate, relationPredicate, elders);
+        Tree<T> source = snapshot == null ? this : snapshot;
+        Set<T> elders = new LinkedHashSet<>();
+        for (T node : nodes) {
+            Deque<T> path = new ArrayDeque<>();
+            Optional<T> current = Optional.of(node);
+            while (current.isPresent() && !elders.contains(current.get())) {
+                path.push(current.get());
+                current = source.findParent(current.get());
+            }
+            while (!path.isEmpty()) elders.add(path.pop());
+        }
+        GenericTree<T> tree = new GenericTree<>(rootPredicate, relationPredicate);
+        tree.nodes.addAll(elders);
+        return tree;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * 快照在节点变化前会被缓存，使用{@link KeyPredicate}时通过主键散列构造，空树返回空的快照
+     */
+    @Override
+    public SnapshotTree<T> freeze() {
+        if (snapshot == null) {
+            snapshot = !nodes.isEmpty() && isKeyed()
+                    ? new ParallelTreeBuilder<>((KeyPredicate<T, ?>) relationPredicate).build(nodes)
+                    : SnapshotTree.of(this);
+        }
+        return snapshot;
     }
 
 }
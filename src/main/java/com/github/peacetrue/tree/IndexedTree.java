@@ -0,0 +1,732 @@
+package com.github.peacetrue.tree;
+
+import java.util.*;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * 索引树，在{@link GenericTree}的基础上为每个节点维护索引项，
+ * 索引项记录了父节点及按添加顺序排列的子节点。
+ * <p>
+ * 节点加入树时通过{@link RelationPredicate}定位一次父节点，之后的查询直接读取索引。
+ * 如果节点关系判断是{@link KeyPredicate}，会额外维护主键索引，通过主键直接定位父节点，
+ * 使构造和添加节点的复杂度降为线性：
+ * <ul>
+ * <li>{@link #contains(Object)}、{@link #findParent(Object)}：O(1)</li>
+ * <li>{@link #findChildren(Object)}：O(子节点数)</li>
+ * <li>{@link #findParents(Object)}：O(深度)</li>
+ * <li>{@link #findYounger(Object)}、{@link #removeNode(Object)}、{@link #detach(Object)}、{@link #moveNode(Object, Object)}：O(子辈节点数)</li>
+ * <li>{@link #isAncestorOf(Object, Object)}：O(1)</li>
+ * <li>{@link #depth(Object)}、{@link #size(Object)}、{@link #isLeaf(Object)}、{@link #height()}、{@link #hash(Object)}：O(1)</li>
+ * <li>{@link #nodesAtLevel(int)}：O(该层级节点数 × log)</li>
+ * </ul>
+ * 索引项记录了节点的深度、子树大小和子树散列，添加和删除节点时沿父辈节点更新，O(深度)；
+ * 同时按深度维护每一层级的索引项。
+ * <p>
+ * 祖先关系通过区间编号（嵌套集合）判断：每个节点持有一个区间，子节点的区间嵌套在父节点的区间内。
+ * 添加节点时从父节点区间的剩余空间中分配，空间不足时对最近的稀疏祖先子树重新均匀编号，
+ * 删除节点时只留下空隙，不需要重新编号。重新编号的均摊开销在深度有限的树中为常数，
+ * 在深度很大的链状树中与深度成正比。
+ * <p>
+ * 注意事项：
+ * <ul>
+ * <li>同一层级树节点的排序，等同于其添加入树中的顺序</li>
+ * <li>节点需要正确实现{@link Object#hashCode()}和{@link Object#equals(Object)}</li>
+ * <li>使用{@link KeyPredicate}时主键必须唯一，添加主键已存在的节点会抛出{@link NodeExistException}</li>
+ * <li>不支持并发操作</li>
+ * </ul>
+ *
+ * @author xiayx
+ */
+public class IndexedTree<T> implements Tree<T> {
+
+    /** 区间编号的取值范围 [0, MAX_LABEL] */
+    private static final long MAX_LABEL = 1L << 62;
+    /** 选择重新编号的子树时，要求相邻编号的间隔不小于此值，以便后续添加节点 */
+    private static final long MIN_STRIDE = 1L << 16;
+    /** 批量添加的节点数目不少于树中节点数目的 1/BULK_RATIO 时，加入所有节点后一次计算索引 */
+    private static final int BULK_RATIO = 4;
+
+    /** 节点索引项，按节点添加入树中的顺序排列 */
+    private final Map<T, Entry<T>> entries;
+    private final RootPredicate<T> rootPredicate;
+    private final RelationPredicate<T> relationPredicate;
+    /** 主键索引，仅当节点关系判断是{@link KeyPredicate}时存在 */
+    private final Map<Object, Entry<T>> keys;
+    /** 每一层级的索引项，末尾不存在空层级 */
+    private final List<Set<Entry<T>>> levels = new ArrayList<>();
+    private Entry<T> root;
+    /** 修改次数，在修改索引时递增，修改前校验失败时不变 */
+    private int modCount;
+
+    /** 初始化空树，后续可通过 {@link #addNode(Object)} 添加节点 */
+    public IndexedTree(RootPredicate<T> rootPredicate, RelationPredicate<T> relationPredicate) {
+        this.rootPredicate = Objects.requireNonNull(rootPredicate);
+        this.relationPredicate = Objects.requireNonNull(relationPredicate);
+        this.entries = new LinkedHashMap<>();
+        this.keys = relationPredicate instanceof KeyPredicate ? new HashMap<>() : null;
+    }
+
+    /** 初始化带节点的树 */
+    public IndexedTree(RootPredicate<T> rootPredicate, RelationPredicate<T> relationPredicate, Collection<T> nodes) {
+        this(rootPredicate, relationPredicate);
+        this.setNodes(nodes);
+    }
+
+    /** 初始化空树，通过主键关联节点 */
+    public IndexedTree(KeyPredicate<T, ?> keyPredicate) {
+        this(keyPredicate, keyPredicate);
+    }
+
+    /** 初始化带节点的树，通过主键关联节点，以一次散列连接完成构造 */
+    public IndexedTree(KeyPredicate<T, ?> keyPredicate, Collection<T> nodes) {
+        this(keyPredicate, keyPredicate, nodes);
+    }
+
+    /**
+     * 复制指定树的结构构造索引树，直接沿用源树中的父子关系，不重新定位父节点，也不校验节点
+     *
+     * @param tree              源树
+     * @param rootPredicate     根节点判断
+     * @param relationPredicate 节点关系判断，用于后续添加的节点
+     * @param <T>               节点
+     * @return 索引树
+     */
+    static <T> IndexedTree<T> copyOf(Tree<T> tree, RootPredicate<T> rootPredicate, RelationPredicate<T> relationPredicate) {
+        IndexedTree<T> copy = new IndexedTree<>(rootPredicate, relationPredicate);
+        Optional<T> root = tree.getRoot();
+        if (!root.isPresent()) return copy;
+        copy.root = copy.index(root.get());
+        Deque<Entry<T>> queue = new ArrayDeque<>();
+        queue.add(copy.root);
+        while (!queue.isEmpty()) {
+            Entry<T> parent = queue.poll();
+            for (T child : tree.findChildren(parent.node)) {
+                Entry<T> entry = copy.index(child);
+                link(entry, parent);
+                queue.add(entry);
+            }
+        }
+        copy.relabelAll();
+        return copy;
+    }
+
+    /** 节点索引项 */
+    static final class Entry<T> {
+        final T node;
+        Entry<T> parent;
+        /** 前一个兄弟节点，没有时为{@code null} */
+        Entry<T> previous;
+        /** 子节点，没有子节点时为{@code null} */
+        List<Entry<T>> children;
+        /** 区间编号，子辈节点的区间嵌套在 (left, right) 内 */
+        long left, right;
+        /** 深度和子树的节点数目 */
+        int depth, size = 1;
+        /** 子树散列，参考{@link SubtreeHash} */
+        long hash;
+
+        Entry(T node) {
+            this.node = node;
+            this.hash = SubtreeHash.seed(node);
+        }
+
+        List<Entry<T>> children() {
+            return children == null ? Collections.emptyList() : children;
+        }
+    }
+
+    /** 获取指定节点的索引项，不存在抛出异常 */
+    private Entry<T> getEntry(T node) {
+        Entry<T> entry = entries.get(node);
+        if (entry == null) throw new NodeAbsentException(node);
+        return entry;
+    }
+
+    @Override
+    public Optional<T> getRoot() {
+        return root == null ? Optional.empty() : Optional.of(root.node);
+    }
+
+    @Override
+    public boolean contains(T node) {
+        return entries.containsKey(node);
+    }
+
+    /** @return 修改次数，次数不变时树没有被修改 */
+    int getModCount() {
+        return modCount;
+    }
+
+    /** 树中是否包含指定主键的节点，仅当节点关系判断是{@link KeyPredicate}时可用 */
+    boolean containsKey(Object key) {
+        return keys.containsKey(key);
+    }
+
+    @Override
+    public Optional<T> findParent(T node) {
+        Entry<T> entry = entries.get(node);
+        return entry == null || entry.parent == null ? Optional.empty() : Optional.of(entry.parent.node);
+    }
+
+    @Override
+    public List<T> findParents(T node) {
+        Entry<T> entry = entries.get(node);
+        if (entry == null) return new LinkedList<>();
+        LinkedList<T> parents = new LinkedList<>();
+        while ((entry = entry.parent) != null) parents.addFirst(entry.node);
+        return parents;
+    }
+
+    @Override
+    public List<T> findChildren(T node) {
+        Entry<T> entry = entries.get(node);
+        if (entry == null) return new ArrayList<>();
+        List<T> children = new ArrayList<>(entry.children().size());
+        for (Entry<T> child : entry.children()) children.add(child.node);
+        return children;
+    }
+
+    @Override
+    public List<T> findYounger(T node) {
+        Entry<T> entry = entries.get(node);
+        List<T> younger = new ArrayList<>();
+        if (entry == null) return younger;
+        Deque<Entry<T>> stack = new ArrayDeque<>();
+        pushChildren(stack, entry);
+        while (!stack.isEmpty()) {
+            Entry<T> current = stack.pop();
+            younger.add(current.node);
+            pushChildren(stack, current);
+        }
+        return younger;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * 直接遍历索引项，不复制子节点列表
+     */
+    @Override
+    public Stream<T> preOrder(T node, int maxDepth) {
+        Entry<T> entry = entries.get(node);
+        if (entry == null || maxDepth < 0) return Tree.super.preOrder(node, maxDepth);
+        return StreamSupport.stream(new DepthFirstSpliterator<>(Entry::children, entry, false, maxDepth), false).map(e -> e.node);
+    }
+
+    @Override
+    public Stream<T> postOrder(T node) {
+        Entry<T> entry = entries.get(node);
+        if (entry == null) return Tree.super.postOrder(node);
+        return StreamSupport.stream(new DepthFirstSpliterator<>(Entry::children, entry, true, Integer.MAX_VALUE), false).map(e -> e.node);
+    }
+
+    @Override
+    public Stream<T> breadthFirst(T node) {
+        Entry<T> entry = entries.get(node);
+        if (entry == null) return Tree.super.breadthFirst(node);
+        return StreamSupport.stream(new BreadthFirstSpliterator<>(Entry::children, entry), false).map(e -> e.node);
+    }
+
+    /** 逆序压入子节点，使出栈顺序与添加顺序一致 */
+    private static <T> void pushChildren(Deque<Entry<T>> stack, Entry<T> entry) {
+        List<Entry<T>> children = entry.children();
+        for (int i = children.size() - 1; i >= 0; i--) stack.push(children.get(i));
+    }
+
+    @Override
+    public Collection<T> getNodes() {
+        return Collections.unmodifiableCollection(entries.keySet());
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * 沿父辈节点更新子树大小和子树散列，O(深度)，在链状树中逐个添加 n 个节点的总复杂度为 O(n²)。
+     * 大量添加节点时使用{@link #addNodes(Collection)}或{@link StreamingTreeBuilder}，在加入所有节点后一次计算索引
+     */
+    @Override
+    public void addNode(T node) {
+        if (entries.isEmpty()) {
+            this.setRoot(node);
+        } else if (entries.containsKey(node)) {
+            throw new NodeExistException(node);
+        } else {
+            Entry<T> parent = resolveParent(node);
+            if (parent == null) throw new ParentAbsentException(node);
+            Entry<T> entry = index(node);
+            modCount++;
+            long hash = parent.hash;
+            link(entry, parent);
+            rehash(parent, hash);
+            entry.depth = parent.depth + 1;
+            resize(parent, 1);
+            level(entry);
+            label(entry, 2);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * 先在一次遍历中校验并排序所有节点，再依次添加。
+     * 批次的节点数目不少于树中节点数目的 1/4 时，只关联父子关系，全部加入后一次计算所有节点的索引，
+     * 使用{@link KeyPredicate}时复杂度为 O(树中节点数 + 批次大小)，与树的深度无关；
+     * 否则逐个添加，复杂度为 O(批次大小 × 深度)
+     */
+    @Override
+    public void addNodes(Collection<T> nodes) {
+        List<T> sorted = NodeBatch.sort(this, nodes, rootPredicate, relationPredicate,
+                node -> entries.containsKey(node) || keys != null && keys.containsKey(keyPredicate().getKey(node)),
+                node -> resolveParent(node) != null);
+        if (sorted.isEmpty()) return;
+        if ((long) sorted.size() * BULK_RATIO < entries.size()) {
+            sorted.forEach(this::addNode);
+            return;
+        }
+        sorted.forEach(this::append);
+        reindex();
+    }
+
+    private void setRoot(T node) {
+        if (rootPredicate.isRoot(Objects.requireNonNull(node))) {
+            root = index(node);
+            modCount++;
+            root.left = 0;
+            root.right = MAX_LABEL;
+            level(root);
+        } else {
+            throw new InvalidRootException(node);
+        }
+    }
+
+    /** 创建节点的索引项 */
+    private Entry<T> index(T node) {
+        Entry<T> entry = new Entry<>(node);
+        index(entry);
+        return entry;
+    }
+
+    /** 加入已有的索引项，主键已存在时抛出{@link NodeExistException}，不修改索引 */
+    private void index(Entry<T> entry) {
+        if (keys != null && keys.putIfAbsent(keyPredicate().getKey(entry.node), entry) != null) {
+            throw new NodeExistException(entry.node);
+        }
+        entries.put(entry.node, entry);
+    }
+
+    /** 删除节点的索引项 */
+    private void unindex(Entry<T> entry) {
+        entries.remove(entry.node);
+        if (keys != null) keys.remove(keyPredicate().getKey(entry.node), entry);
+    }
+
+    /** 将索引项加入其深度对应的层级 */
+    private void level(Entry<T> entry) {
+        while (levels.size() <= entry.depth) levels.add(new HashSet<>());
+        levels.get(entry.depth).add(entry);
+    }
+
+    /** 将索引项移出其深度对应的层级 */
+    private void unlevel(Entry<T> entry) {
+        levels.get(entry.depth).remove(entry);
+        while (!levels.isEmpty() && levels.get(levels.size() - 1).isEmpty()) levels.remove(levels.size() - 1);
+    }
+
+    /** 自指定节点向上，调整所有父辈节点的子树大小 */
+    private static <T> void resize(Entry<T> entry, int delta) {
+        for (; entry != null; entry = entry.parent) entry.size += delta;
+    }
+
+    /** 指定节点的子树散列变化后，沿父辈节点替换其在父节点中的项 */
+    private static <T> void rehash(Entry<T> entry, long oldHash) {
+        for (Entry<T> parent = entry.parent; parent != null; entry = parent, parent = parent.parent) {
+            Object previous = entry.previous == null ? null : entry.previous.node;
+            long parentHash = parent.hash;
+            parent.hash += SubtreeHash.term(entry.hash, previous) - SubtreeHash.term(oldHash, previous);
+            oldHash = parentHash;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private KeyPredicate<T, Object> keyPredicate() {
+        return (KeyPredicate<T, Object>) relationPredicate;
+    }
+
+    /** 在树中定位指定节点的父节点 */
+    private Entry<T> resolveParent(T node) {
+        if (keys != null) {
+            Object parentKey = keyPredicate().getParentKey(node);
+            Entry<T> parent = parentKey == null ? null : keys.get(parentKey);
+            return parent == null || parent.node == node ? null : parent;
+        }
+        for (Entry<T> entry : entries.values()) {
+            if (entry.node != node && relationPredicate.isParentOf(entry.node, node)) return entry;
+        }
+        return null;
+    }
+
+    /** 将子节点关联到父节点的末尾，同时将子节点的项计入父节点的子树散列，不更新更上层的父辈节点 */
+    private static <T> void link(Entry<T> child, Entry<T> parent) {
+        child.parent = parent;
+        if (parent.children == null) parent.children = new ArrayList<>(2);
+        child.previous = parent.children.isEmpty() ? null : parent.children.get(parent.children.size() - 1);
+        parent.children.add(child);
+        parent.hash += SubtreeHash.term(child.hash, child.previous == null ? null : child.previous.node);
+    }
+
+    /** 解除子节点与父节点的关联，同时从父节点的子树散列中移除子节点的项，不更新更上层的父辈节点 */
+    private static <T> void unlink(Entry<T> child) {
+        Entry<T> parent = child.parent;
+        List<Entry<T>> siblings = parent.children;
+        for (int i = siblings.size() - 1; i >= 0; i--) {
+            if (siblings.get(i) == child) {
+                siblings.remove(i);
+                Object previous = child.previous == null ? null : child.previous.node;
+                parent.hash -= SubtreeHash.term(child.hash, previous);
+                if (i < siblings.size()) {
+                    // 后一个兄弟节点改为跟随前一个兄弟节点
+                    Entry<T> next = siblings.get(i);
+                    parent.hash += SubtreeHash.term(next.hash, previous) - SubtreeHash.term(next.hash, child.node);
+                    next.previous = child.previous;
+                }
+                break;
+            }
+        }
+        child.parent = null;
+        child.previous = null;
+    }
+
+    private void setNodes(Collection<T> nodes) {
+        Objects.requireNonNull(nodes);
+        this.entries.clear();
+        if (this.keys != null) this.keys.clear();
+        this.root = null;
+        for (T node : nodes) {
+            if (entries.containsKey(Objects.requireNonNull(node))) throw new NodeExistException(node);
+            index(node);
+        }
+        this.buildIndex();
+    }
+
+    /**
+     * 加入节点并关联到已在树中的父节点，树为空时作为根节点，不校验节点，
+     * 也不计算深度、子树大小、子树散列、层级和区间编号，全部加入后通过{@link #reindex()}一次计算
+     */
+    void append(T node) {
+        Entry<T> entry = index(node);
+        modCount++;
+        if (root == null) root = entry;
+        else link(entry, resolveParent(node));
+    }
+
+    /** 一次计算所有节点的深度、子树大小、子树散列、层级和区间编号，O(节点数) */
+    void reindex() {
+        if (root != null) relabelAll();
+    }
+
+    /** 关联所有节点的父子关系，同时检查节点能否组成一颗有效树 */
+    private void buildIndex() {
+        Set<T> roots = new LinkedHashSet<>();
+        entries.keySet().forEach(t -> {
+            if (rootPredicate.isRoot(t)) roots.add(t);
+        });
+        if (roots.size() > 1) throw new MultiRootException(roots);
+        if (roots.isEmpty()) throw new RootAbsentException();
+        root = entries.get(roots.iterator().next());
+        for (Entry<T> entry : entries.values()) {
+            if (entry == root) continue;
+            Entry<T> parent = resolveParent(entry.node);
+            if (parent == null) throw new ParentAbsentException(entry.node);
+            link(entry, parent);
+        }
+        // 节点间的关系成环时，成环的节点无法从根节点到达
+        List<T> younger = findYounger(root.node);
+        if (younger.size() + 1 < entries.size()) {
+            Set<T> unreachable = new LinkedHashSet<>(entries.keySet());
+            unreachable.remove(root.node);
+            unreachable.removeAll(younger);
+            throw new ParentAbsentException(unreachable.iterator().next());
+        }
+        relabelAll();
+    }
+
+    /** 为所有节点重新编号，同时计算深度、子树大小、子树散列和层级 */
+    private void relabelAll() {
+        root.left = 0;
+        root.right = MAX_LABEL;
+        root.depth = 0;
+        relabel(root);
+        levels.clear();
+        entries.values().forEach(this::level);
+    }
+
+    /**
+     * 为新添加的末尾子节点分配区间编号，空间不足时重新编号
+     *
+     * @param child    子节点
+     * @param minWidth 区间的最小宽度
+     * @return 是否重新编号，重新编号时子节点的子辈节点也已重新编号
+     */
+    private boolean label(Entry<T> child, long minWidth) {
+        Entry<T> parent = child.parent;
+        List<Entry<T>> siblings = parent.children;
+        Entry<T> previous = siblings.size() > 1 ? siblings.get(siblings.size() - 2) : null;
+        long start = previous == null ? parent.left : previous.right;
+        // 与前一个兄弟节点的区间等宽，没有兄弟节点时分配剩余空间的一半，都不超过剩余空间的一半
+        long free = parent.right - start - 1;
+        long width = previous == null ? free / 2 : Math.min(previous.right - previous.left, free / 2);
+        if (width < minWidth) width = free / 2;
+        if (width >= minWidth) {
+            child.left = start + 1;
+            child.right = start + width;
+            return false;
+        }
+        rebalance(parent);
+        return true;
+    }
+
+    /** 自下而上查找编号足够稀疏的祖先，为其子树重新编号 */
+    private void rebalance(Entry<T> entry) {
+        while (entry.parent != null && (entry.right - entry.left) / (2L * entry.size) < MIN_STRIDE) entry = entry.parent;
+        relabel(entry);
+    }
+
+    /**
+     * 保持指定节点的区间不变，为子辈节点重新编号，同时根据指定节点的深度重新计算子辈节点的深度、子树大小和子树散列。
+     * <p>
+     * 每个节点占用的编号单位数为：左右编号各一个，末尾预留与子节点数目相当的空隙，再加上所有子节点占用的单位数，
+     * 使后续添加的子节点不会立即耗尽空隙。
+     */
+    private static <T> void relabel(Entry<T> entry) {
+        long left = entry.left, right = entry.right;
+        List<Entry<T>> preOrder = new ArrayList<>();
+        Deque<Entry<T>> stack = new ArrayDeque<>();
+        stack.push(entry);
+        while (!stack.isEmpty()) {
+            Entry<T> current = stack.pop();
+            preOrder.add(current);
+            pushChildren(stack, current);
+        }
+        // 后序计算占用的单位数，暂存在 right 中
+        for (int i = preOrder.size() - 1; i >= 0; i--) {
+            Entry<T> current = preOrder.get(i);
+            long units = 3L + current.children().size();
+            current.size = 1;
+            current.hash = SubtreeHash.seed(current.node);
+            for (Entry<T> child : current.children()) {
+                units += child.right;
+                current.size += child.size;
+                current.hash += SubtreeHash.term(child.hash, child.previous == null ? null : child.previous.node);
+            }
+            current.right = units;
+        }
+        long unit = (right - left) / (entry.right - 1);
+        if (unit < 1) throw new IllegalStateException(String.format("节点数目[%s]超出区间编号的容量", preOrder.size()));
+        entry.right = right;
+        for (Entry<T> current : preOrder) {
+            long cursor = current.left + unit;
+            for (Entry<T> child : current.children()) {
+                long units = child.right;
+                child.left = cursor;
+                child.right = cursor + (units - 1) * unit;
+                child.depth = current.depth + 1;
+                cursor = child.right + unit;
+            }
+        }
+    }
+
+    @Override
+    public boolean isAncestorOf(T ancestor, T node) {
+        Entry<T> ancestorEntry = entries.get(ancestor), entry = entries.get(node);
+        return ancestorEntry != null && entry != null
+                && ancestorEntry.left < entry.left && entry.right < ancestorEntry.right;
+    }
+
+    @Override
+    public int depth(T node) {
+        return getEntry(node).depth;
+    }
+
+    @Override
+    public int size(T node) {
+        return getEntry(node).size;
+    }
+
+    @Override
+    public int height() {
+        return levels.size();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * 读取层级索引后按区间编号排序
+     */
+    @Override
+    public List<T> nodesAtLevel(int level) {
+        if (level < 0) throw new IllegalArgumentException(String.format("层级[%s]不能小于 0", level));
+        List<T> nodes = new ArrayList<>();
+        if (level >= levels.size()) return nodes;
+        List<Entry<T>> sorted = new ArrayList<>(levels.get(level));
+        sorted.sort(Comparator.comparingLong(entry -> entry.left));
+        for (Entry<T> entry : sorted) nodes.add(entry.node);
+        return nodes;
+    }
+
+    @Override
+    public boolean isLeaf(T node) {
+        return getEntry(node).children().isEmpty();
+    }
+
+    @Override
+    public long hash(T node) {
+        return getEntry(node).hash;
+    }
+
+    @Override
+    public void removeNode(T node) {
+        Entry<T> entry = getEntry(node);
+        modCount++;
+        if (entry == root) {
+            entries.clear();
+            if (keys != null) keys.clear();
+            levels.clear();
+            root = null;
+            return;
+        }
+        Entry<T> parent = entry.parent;
+        long hash = parent.hash;
+        resize(parent, -entry.size);
+        unlink(entry);
+        rehash(parent, hash);
+        Deque<Entry<T>> stack = new ArrayDeque<>();
+        stack.push(entry);
+        while (!stack.isEmpty()) {
+            Entry<T> current = stack.pop();
+            unindex(current);
+            unlevel(current);
+            current.children().forEach(stack::push);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * 通过区间编号判断是否成环，为移动的分支分配新的区间后重新编号其子辈节点
+     */
+    @Override
+    public void moveNode(T node, T parent) {
+        Entry<T> entry = getEntry(node), target = getEntry(parent);
+        if (entry == target || (entry.left < target.left && target.right < entry.right)) {
+            throw new CyclicMoveException(node, parent);
+        }
+        modCount++;
+        Entry<T> source = entry.parent;
+        long hash = source.hash;
+        resize(source, -entry.size);
+        unlink(entry);
+        rehash(source, hash);
+        hash = target.hash;
+        link(entry, target);
+        rehash(target, hash);
+        resize(target, entry.size);
+        int offset = target.depth + 1 - entry.depth;
+        if (offset != 0) {
+            Deque<Entry<T>> stack = new ArrayDeque<>();
+            stack.push(entry);
+            while (!stack.isEmpty()) {
+                Entry<T> current = stack.pop();
+                unlevel(current);
+                current.depth += offset;
+                level(current);
+                current.children().forEach(stack::push);
+            }
+        }
+        // 预留足够的空间，使分支重新编号后仍有与新添加节点相当的空隙
+        if (!label(entry, Math.max(2, 4L * entry.size * MIN_STRIDE))) relabel(entry);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * 分支直接沿用原有的索引项和区间编号，不需要重新定位父节点
+     */
+    @Override
+    public IndexedTree<T> detach(T node) {
+        Entry<T> entry = getEntry(node);
+        IndexedTree<T> branch = new IndexedTree<>(entry == root ? rootPredicate : RootPredicate.branchOf(relationPredicate, entry.parent.node), relationPredicate);
+        modCount++;
+        if (entry == root) {
+            root = null;
+        } else {
+            Entry<T> parent = entry.parent;
+            long hash = parent.hash;
+            resize(parent, -entry.size);
+            unlink(entry);
+            rehash(parent, hash);
+        }
+        int offset = entry.depth;
+        Deque<Entry<T>> stack = new ArrayDeque<>();
+        stack.push(entry);
+        while (!stack.isEmpty()) {
+            Entry<T> current = stack.pop();
+            unindex(current);
+            unlevel(current);
+            current.depth -= offset;
+            branch.index(current);
+            branch.level(current);
+            pushChildren(stack, current);
+        }
+        // 子辈节点的区间仍然嵌套在根节点的区间内，只需扩展根节点的区间
+        branch.root = entry;
+        entry.left = 0;
+        entry.right = MAX_LABEL;
+        return branch;
+    }
+
+    @Override
+    public IndexedTree<T> subtree(T node) {
+        Entry<T> entry = getEntry(node);
+        IndexedTree<T> subtree = new IndexedTree<>(entry == root ? rootPredicate : RootPredicate.branchOf(relationPredicate, entry.parent.node), relationPredicate);
+        subtree.root = subtree.index(node);
+        copyYounger(entry, subtree);
+        subtree.relabelAll();
+        return subtree;
+    }
+
+    /** 将指定节点的子辈节点复制到目标树中，目标树中已存在指定节点 */
+    private static <T> void copyYounger(Entry<T> entry, IndexedTree<T> target) {
+        Deque<Entry<T>> stack = new ArrayDeque<>();
+        pushChildren(stack, entry);
+        while (!stack.isEmpty()) {
+            Entry<T> current = stack.pop();
+            link(target.index(current.node), target.entries.get(current.parent.node));
+            pushChildren(stack, current);
+        }
+    }
+
+    @Override
+    public IndexedTree<T> localTree(Collection<T> nodes) {
+        nodes.forEach(this::getEntry);
+        IndexedTree<T> localTree = new IndexedTree<>(rootPredicate, relationPredicate);
+        for (T node : nodes) {
+            // 自下而上收集尚未加入局部树的父辈节点，遇到已加入的节点即停止
+            Deque<Entry<T>> path = new ArrayDeque<>();
+            Entry<T> entry = entries.get(node);
+            while (entry != null && !localTree.entries.containsKey(entry.node)) {
+                path.push(entry);
+                entry = entry.parent;
+            }
+            while (!path.isEmpty()) {
+                Entry<T> current = path.pop();
+                Entry<T> copy = localTree.index(current.node);
+                if (current.parent == null) localTree.root = copy;
+                else link(copy, localTree.entries.get(current.parent.node));
+            }
+        }
+        if (localTree.root != null) localTree.relabelAll();
+        return localTree;
+    }
+
+}
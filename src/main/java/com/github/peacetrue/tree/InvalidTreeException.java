@@ -0,0 +1,43 @@
+package com.github.peacetrue.tree;
+
+import java.util.Collection;
+import java.util.Objects;
+
+/**
+ * 节点集合无法组成有效树，一次性报告所有无效的节点
+ *
+ * @author xiayx
+ */
+public class InvalidTreeException extends RuntimeException {
+
+    private Collection<?> roots;
+    private Collection<?> duplicates;
+    private Collection<?> orphans;
+
+    /**
+     * @param roots      根节点，有且仅有一个时有效
+     * @param duplicates 重复的节点
+     * @param orphans    父节点不存在或者无法从根节点到达的节点
+     */
+    public InvalidTreeException(Collection<?> roots, Collection<?> duplicates, Collection<?> orphans) {
+        super(String.format("节点集合无法组成有效树，根节点[%s]，重复节点[%s]，父节点不存在的节点[%s]", roots, duplicates, orphans));
+        this.roots = Objects.requireNonNull(roots);
+        this.duplicates = Objects.requireNonNull(duplicates);
+        this.orphans = Objects.requireNonNull(orphans);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> Collection<T> getRoots() {
+        return (Collection<T>) roots;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> Collection<T> getDuplicates() {
+        return (Collection<T>) duplicates;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> Collection<T> getOrphans() {
+        return (Collection<T>) orphans;
+    }
+}
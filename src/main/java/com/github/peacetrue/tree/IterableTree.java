@@ -2,9 +2,15 @@ package com.github.peacetrue.tree;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * 迭代树接口
+ * <p>
+ * 遍历方法返回惰性的流，遍历过程中才通过{@link #findChildren(Object)}获取子节点，
+ * 不使用递归，可以通过{@link Stream#findFirst()}等短路操作提前结束遍历。
+ * 遍历结果包含起始节点，起始节点不存在于树中时仅包含起始节点。
  *
  * @author xiayx
  */
@@ -25,4 +31,61 @@ public interface IterableTree<T> {
      */
     List<T> findChildren(T node);
 
+    /**
+     * 从根节点开始先序遍历
+     *
+     * @return 所有节点，没有根节点时返回空流
+     */
+    default Stream<T> stream() {
+        return getRoot().map(this::preOrder).orElseGet(Stream::empty);
+    }
+
+    /**
+     * 深度优先先序遍历，父节点在子节点之前
+     * <p>
+     * 流可以被分割，适用于并行流
+     *
+     * @param node 起始节点
+     * @return 起始节点及其子辈节点
+     */
+    default Stream<T> preOrder(T node) {
+        return preOrder(node, Integer.MAX_VALUE);
+    }
+
+    /**
+     * 限制深度的深度优先先序遍历
+     *
+     * @param node     起始节点
+     * @param maxDepth 相对于起始节点的最大深度，起始节点的深度为 0
+     * @return 起始节点及深度不超过 maxDepth 的子辈节点
+     */
+    default Stream<T> preOrder(T node, int maxDepth) {
+        if (maxDepth < 0) throw new IllegalArgumentException(String.format("最大深度[%s]不能小于 0", maxDepth));
+        return StreamSupport.stream(new DepthFirstSpliterator<>(this::findChildren, node, false, maxDepth), false);
+    }
+
+    /**
+     * 深度优先后序遍历，子节点在父节点之前
+     * <p>
+     * 流可以被分割，适用于并行流
+     *
+     * @param node 起始节点
+     * @return 起始节点及其子辈节点
+     */
+    default Stream<T> postOrder(T node) {
+        return StreamSupport.stream(new DepthFirstSpliterator<>(this::findChildren, node, true, Integer.MAX_VALUE), false);
+    }
+
+    /**
+     * 广度优先遍历，按层级依次输出
+     * <p>
+     * 流不可分割
+     *
+     * @param node 起始节点
+     * @return 起始节点及其子辈节点
+     */
+    default Stream<T> breadthFirst(T node) {
+        return StreamSupport.stream(new BreadthFirstSpliterator<>(this::findChildren, node), false);
+    }
+
 }
@@ -0,0 +1,76 @@
+package com.github.peacetrue.tree;
+
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * 基于主键的节点关系判断，适用于包含主键和父主键的节点，例如：数据库中的 id、parentId 列。
+ * <p>
+ * 相比于{@link RelationPredicate}，树的实现可以通过主键建立散列索引，
+ * 以一次遍历完成所有节点父子关系的关联，而无需两两比较节点。
+ * <p>
+ * 注意事项：
+ * <ul>
+ * <li>主键在树中必须唯一，且需要正确实现{@link Object#hashCode()}和{@link Object#equals(Object)}</li>
+ * <li>默认父主键为{@code null}的节点是根节点</li>
+ * </ul>
+ *
+ * @param <T> 节点
+ * @param <K> 主键
+ * @author xiayx
+ */
+public interface KeyPredicate<T, K> extends RootPredicate<T>, RelationPredicate<T> {
+
+    /**
+     * 获取节点的主键
+     *
+     * @param node 节点
+     * @return 主键
+     */
+    K getKey(T node);
+
+    /**
+     * 获取节点的父主键
+     *
+     * @param node 节点
+     * @return 父主键，根节点返回{@code null}
+     */
+    K getParentKey(T node);
+
+    @Override
+    default boolean isRoot(T node) {
+        return getParentKey(node) == null;
+    }
+
+    @Override
+    default boolean isParentOf(T parent, T child) {
+        K parentKey = getParentKey(child);
+        return parentKey != null && parentKey.equals(getKey(parent));
+    }
+
+    /**
+     * 通过主键和父主键的提取函数构造判断
+     *
+     * @param key       主键提取函数
+     * @param parentKey 父主键提取函数
+     * @param <T>       节点
+     * @param <K>       主键
+     * @return 基于主键的节点关系判断
+     */
+    static <T, K> KeyPredicate<T, K> of(Function<? super T, ? extends K> key,
+                                        Function<? super T, ? extends K> parentKey) {
+        Objects.requireNonNull(key);
+        Objects.requireNonNull(parentKey);
+        return new KeyPredicate<T, K>() {
+            @Override
+            public K getKey(T node) {
+                return key.apply(node);
+            }
+
+            @Override
+            public K getParentKey(T node) {
+                return parentKey.apply(node);
+            }
+        };
+    }
+}
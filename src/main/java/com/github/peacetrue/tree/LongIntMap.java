@@ -0,0 +1,64 @@
+package com.github.peacetrue.tree;
+
+/**
+ * 开放寻址的 long 到 int 散列表，键和值都以原始类型存储，查询时不创建对象
+ *
+ * @author xiayx
+ */
+class LongIntMap {
+
+    private long[] keys;
+    /** 存储值 + 1，0 表示空槽 */
+    private int[] values;
+    private int size;
+
+    LongIntMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(2, expectedSize) * 2 - 1) << 1;
+        this.keys = new long[capacity];
+        this.values = new int[capacity];
+    }
+
+    private static int slot(long key, int length) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & (length - 1);
+    }
+
+    /** 获取键对应的值，不存在返回 -1 */
+    int get(long key) {
+        int mask = keys.length - 1;
+        for (int slot = slot(key, keys.length); values[slot] != 0; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) return values[slot] - 1;
+        }
+        return -1;
+    }
+
+    /** 添加键值，值不能为负数 */
+    void put(long key, int value) {
+        if ((size + 1) * 2 > keys.length) resize();
+        int mask = keys.length - 1;
+        int slot = slot(key, keys.length);
+        while (values[slot] != 0 && keys[slot] != key) slot = (slot + 1) & mask;
+        if (values[slot] == 0) size++;
+        keys[slot] = key;
+        values[slot] = value + 1;
+    }
+
+    private void resize() {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new int[oldValues.length * 2];
+        int mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] == 0) continue;
+            int slot = slot(oldKeys[i], keys.length);
+            while (values[slot] != 0) slot = (slot + 1) & mask;
+            keys[slot] = oldKeys[i];
+            values[slot] = oldValues[i];
+        }
+    }
+
+    int size() {
+        return size;
+    }
+}
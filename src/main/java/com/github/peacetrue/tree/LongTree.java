@@ -0,0 +1,267 @@
+package com.github.peacetrue.tree;
+
+import java.util.*;
+import java.util.function.LongConsumer;
+import java.util.function.LongFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * 以 long 主键为节点的树，节点之间的关系通过数组存储，适用于数值主键的层级数据。
+ * <p>
+ * 相比于使用{@link Long}作为节点的{@link Tree}，查询方法不会装箱主键，也不会创建{@link Optional}、{@link List}等结果对象：
+ * <ul>
+ * <li>{@link #parentOf(long, long)}、{@link #depth(long)}：O(1)</li>
+ * <li>{@link #forEachChild(long, LongConsumer)}：O(子节点数)</li>
+ * <li>{@link #forEachYounger(long, LongConsumer)}：O(子辈节点数)，不使用栈</li>
+ * <li>{@link #ancestors(long, long[])}：O(深度)，写入调用方提供的数组</li>
+ * </ul>
+ * 可以通过{@link #of(Tree, ToLongFunction)}、{@link #toTree(LongFunction)}与{@link Tree}互相转换。
+ * <p>
+ * 注意事项：
+ * <ul>
+ * <li>同一层级树节点的排序，等同于其添加入树中的顺序</li>
+ * <li>添加节点时，需要遵循从根节点到叶子节点的顺序依次添加</li>
+ * <li>不支持删除节点</li>
+ * <li>不支持并发操作</li>
+ * </ul>
+ *
+ * @author xiayx
+ */
+public class LongTree {
+
+    private static final int NONE = -1;
+
+    /** 主键到节点序号的映射，节点序号即添加顺序 */
+    private final LongIntMap positions;
+    private long[] ids;
+    private int[] parents, firstChildren, lastChildren, nextSiblings, depths;
+    private int size;
+
+    public LongTree() {
+        this(16);
+    }
+
+    /** @param expectedSize 预计的节点数目 */
+    public LongTree(int expectedSize) {
+        int capacity = Math.max(1, expectedSize);
+        this.positions = new LongIntMap(capacity);
+        this.ids = new long[capacity];
+        this.parents = new int[capacity];
+        this.firstChildren = new int[capacity];
+        this.lastChildren = new int[capacity];
+        this.nextSiblings = new int[capacity];
+        this.depths = new int[capacity];
+    }
+
+    /**
+     * 复制指定树，节点转换为主键
+     *
+     * @param tree 树
+     * @param id   节点主键提取函数
+     * @param <T>  节点
+     * @return 主键树
+     */
+    public static <T> LongTree of(Tree<T> tree, ToLongFunction<? super T> id) {
+        LongTree longTree = new LongTree(tree.getNodes().size());
+        Optional<T> root = tree.getRoot();
+        if (!root.isPresent()) return longTree;
+        longTree.addRoot(id.applyAsLong(root.get()));
+        Deque<T> stack = new ArrayDeque<>();
+        stack.push(root.get());
+        while (!stack.isEmpty()) {
+            T parent = stack.pop();
+            long parentId = id.applyAsLong(parent);
+            for (T child : tree.findChildren(parent)) {
+                longTree.addNode(id.applyAsLong(child), parentId);
+                stack.push(child);
+            }
+        }
+        return longTree;
+    }
+
+    /**
+     * 转换为快照树
+     *
+     * @param node 主键到节点的转换函数
+     * @param <T>  节点
+     * @return 快照树
+     */
+    public <T> SnapshotTree<T> toTree(LongFunction<? extends T> node) {
+        Object[] nodes = new Object[size];
+        int[] parents = new int[size];
+        // 节点序号在先序中的位置
+        int[] ranks = new int[size];
+        if (size > 0) {
+            int rank = 0, current = 0;
+            do {
+                ranks[current] = rank;
+                nodes[rank] = node.apply(ids[current]);
+                parents[rank] = current == 0 ? -1 : ranks[this.parents[current]];
+                rank++;
+            } while ((current = nextInPreOrder(current, 0)) != NONE);
+        }
+        return new SnapshotTree<>(nodes, parents);
+    }
+
+    /** 获取节点序号，不存在抛出异常 */
+    private int positionOf(long id) {
+        int position = positions.get(id);
+        if (position < 0) throw new NodeAbsentException(id);
+        return position;
+    }
+
+    /**
+     * 添加根节点
+     *
+     * @param id 根节点主键
+     * @throws MultiRootException 如果已存在根节点
+     */
+    public void addRoot(long id) throws MultiRootException {
+        if (size > 0) throw new MultiRootException(Arrays.asList(ids[0], id));
+        append(id, NONE);
+    }
+
+    /**
+     * 添加节点
+     *
+     * @param id       节点主键
+     * @param parentId 父节点主键
+     * @throws NodeExistException    如果指定节点已存在于树中
+     * @throws ParentAbsentException 如果指定节点的父节点不存在于树中
+     */
+    public void addNode(long id, long parentId) throws NodeExistException, ParentAbsentException {
+        if (positions.get(id) >= 0) throw new NodeExistException(id);
+        int parent = positions.get(parentId);
+        if (parent < 0) throw new ParentAbsentException(id);
+        append(id, parent);
+    }
+
+    private void append(long id, int parent) {
+        if (size == ids.length) grow();
+        int position = size++;
+        positions.put(id, position);
+        ids[position] = id;
+        parents[position] = parent;
+        firstChildren[position] = NONE;
+        lastChildren[position] = NONE;
+        nextSiblings[position] = NONE;
+        if (parent == NONE) {
+            depths[position] = 0;
+        } else {
+            depths[position] = depths[parent] + 1;
+            if (lastChildren[parent] == NONE) firstChildren[parent] = position;
+            else nextSiblings[lastChildren[parent]] = position;
+            lastChildren[parent] = position;
+        }
+    }
+
+    private void grow() {
+        int capacity = ids.length * 2;
+        ids = Arrays.copyOf(ids, capacity);
+        parents = Arrays.copyOf(parents, capacity);
+        firstChildren = Arrays.copyOf(firstChildren, capacity);
+        lastChildren = Arrays.copyOf(lastChildren, capacity);
+        nextSiblings = Arrays.copyOf(nextSiblings, capacity);
+        depths = Arrays.copyOf(depths, capacity);
+    }
+
+    /** 节点数目 */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 获取根节点
+     *
+     * @return 根节点主键
+     * @throws RootAbsentException 如果树中没有节点
+     */
+    public long getRoot() throws RootAbsentException {
+        if (size == 0) throw new RootAbsentException();
+        return ids[0];
+    }
+
+    /** 树中是否包含指定节点 */
+    public boolean contains(long id) {
+        return positions.get(id) >= 0;
+    }
+
+    /**
+     * 获取父节点
+     *
+     * @param id           节点主键
+     * @param defaultValue 根节点时返回的值
+     * @return 父节点主键
+     * @throws NodeAbsentException 如果指定节点不存在于树中
+     */
+    public long parentOf(long id, long defaultValue) throws NodeAbsentException {
+        int parent = parents[positionOf(id)];
+        return parent == NONE ? defaultValue : ids[parent];
+    }
+
+    /**
+     * 获取节点深度，根节点深度为 0
+     *
+     * @param id 节点主键
+     * @return 深度，等于父辈节点的数目
+     * @throws NodeAbsentException 如果指定节点不存在于树中
+     */
+    public int depth(long id) throws NodeAbsentException {
+        return depths[positionOf(id)];
+    }
+
+    /**
+     * 按添加顺序遍历子节点
+     *
+     * @param id     节点主键
+     * @param action 子节点主键的处理函数
+     * @throws NodeAbsentException 如果指定节点不存在于树中
+     */
+    public void forEachChild(long id, LongConsumer action) throws NodeAbsentException {
+        for (int child = firstChildren[positionOf(id)]; child != NONE; child = nextSiblings[child]) {
+            action.accept(ids[child]);
+        }
+    }
+
+    /**
+     * 按先序遍历子辈节点
+     *
+     * @param id     节点主键
+     * @param action 子辈节点主键的处理函数
+     * @throws NodeAbsentException 如果指定节点不存在于树中
+     */
+    public void forEachYounger(long id, LongConsumer action) throws NodeAbsentException {
+        int start = positionOf(id), current = start;
+        while ((current = nextInPreOrder(current, start)) != NONE) action.accept(ids[current]);
+    }
+
+    /** 获取先序中的下一个节点，不超出 start 的子树 */
+    private int nextInPreOrder(int current, int start) {
+        if (firstChildren[current] != NONE) return firstChildren[current];
+        while (current != start) {
+            if (nextSiblings[current] != NONE) return nextSiblings[current];
+            current = parents[current];
+        }
+        return NONE;
+    }
+
+    /**
+     * 将父辈节点按根节点->父节点的顺序写入缓冲区
+     *
+     * @param id     节点主键
+     * @param buffer 缓冲区，长度不小于节点深度
+     * @return 父辈节点的数目，即节点深度
+     * @throws NodeAbsentException      如果指定节点不存在于树中
+     * @throws IllegalArgumentException 如果缓冲区长度小于节点深度
+     */
+    public int ancestors(long id, long[] buffer) throws NodeAbsentException {
+        int position = positionOf(id);
+        int depth = depths[position];
+        if (buffer.length < depth) {
+            throw new IllegalArgumentException(String.format("缓冲区长度[%s]小于节点深度[%s]", buffer.length, depth));
+        }
+        for (int i = depth - 1; i >= 0; i--) buffer[i] = ids[position = parents[position]];
+        return depth;
+    }
+
+}
@@ -0,0 +1,319 @@
+package com.github.peacetrue.tree;
+
+import com.github.peacetrue.tree.TreeMetrics.Operation;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * 度量树，包装其他树并通过{@link TreeMetrics}记录每次操作的耗时和结果大小，操作失败时同样记录耗时。
+ * <p>
+ * 统计节点数目和高度的开销与树的实现相关，因此不会自动采样树的形状，需要时通过{@link #sampleShape()}主动采样。
+ * 遍历方法直接委托给被包装的树，返回惰性的流，不记录耗时。
+ * <p>
+ * 是否线程安全取决于被包装的树。
+ *
+ * @author xiayx
+ */
+public class MeteredTree<T> implements Tree<T> {
+
+    private final Tree<T> tree;
+    private final TreeMetrics metrics;
+
+    /**
+     * @param tree    被包装的树
+     * @param metrics 度量指标
+     */
+    public MeteredTree(Tree<T> tree, TreeMetrics metrics) {
+        this.tree = Objects.requireNonNull(tree);
+        this.metrics = Objects.requireNonNull(metrics);
+    }
+
+    /** @return 被包装的树 */
+    Tree<T> getTree() {
+        return tree;
+    }
+
+    /** 采样树的节点数目和高度，不记录为操作 */
+    public void sampleShape() {
+        Optional<T> root = tree.getRoot();
+        metrics.recordShape(root.isPresent() ? tree.size(root.get()) : 0, tree.height());
+    }
+
+    /** 记录操作 */
+    private void record(Operation operation, long start, int resultSize) {
+        metrics.recordOperation(operation, System.nanoTime() - start, resultSize);
+    }
+
+    /** @return 结果大小，操作失败时为 -1 */
+    private static int sizeOf(Collection<?> result) {
+        return result == null ? -1 : result.size();
+    }
+
+    @Override
+    public Optional<T> getRoot() {
+        long start = System.nanoTime();
+        try {
+            return tree.getRoot();
+        } finally {
+            record(Operation.GET_ROOT, start, -1);
+        }
+    }
+
+    @Override
+    public Collection<T> getNodes() {
+        long start = System.nanoTime();
+        Collection<T> nodes = null;
+        try {
+            return nodes = tree.getNodes();
+        } finally {
+            record(Operation.GET_NODES, start, sizeOf(nodes));
+        }
+    }
+
+    @Override
+    public boolean contains(T node) {
+        long start = System.nanoTime();
+        try {
+            return tree.contains(node);
+        } finally {
+            record(Operation.CONTAINS, start, -1);
+        }
+    }
+
+    @Override
+    public Optional<T> findParent(T node) {
+        long start = System.nanoTime();
+        Optional<T> parent = null;
+        try {
+            return parent = tree.findParent(node);
+        } finally {
+            record(Operation.FIND_PARENT, start, parent == null ? -1 : parent.isPresent() ? 1 : 0);
+        }
+    }
+
+    @Override
+    public List<T> findParents(T node) {
+        long start = System.nanoTime();
+        List<T> parents = null;
+        try {
+            return parents = tree.findParents(node);
+        } finally {
+            record(Operation.FIND_PARENTS, start, sizeOf(parents));
+        }
+    }
+
+    @Override
+    public boolean isAncestorOf(T ancestor, T node) {
+        long start = System.nanoTime();
+        try {
+            return tree.isAncestorOf(ancestor, node);
+        } finally {
+            record(Operation.IS_ANCESTOR_OF, start, -1);
+        }
+    }
+
+    @Override
+    public List<T> findChildren(T node) {
+        long start = System.nanoTime();
+        List<T> children = null;
+        try {
+            return children = tree.findChildren(node);
+        } finally {
+            record(Operation.FIND_CHILDREN, start, sizeOf(children));
+        }
+    }
+
+    @Override
+    public List<T> findYounger(T node) {
+        long start = System.nanoTime();
+        List<T> younger = null;
+        try {
+            return younger = tree.findYounger(node);
+        } finally {
+            record(Operation.FIND_YOUNGER, start, sizeOf(younger));
+        }
+    }
+
+    @Override
+    public int depth(T node) {
+        long start = System.nanoTime();
+        try {
+            return tree.depth(node);
+        } finally {
+            record(Operation.DEPTH, start, -1);
+        }
+    }
+
+    @Override
+    public int size(T node) {
+        long start = System.nanoTime();
+        try {
+            return tree.size(node);
+        } finally {
+            record(Operation.SIZE, start, -1);
+        }
+    }
+
+    @Override
+    public int height() {
+        long start = System.nanoTime();
+        try {
+            return tree.height();
+        } finally {
+            record(Operation.HEIGHT, start, -1);
+        }
+    }
+
+    @Override
+    public List<T> nodesAtLevel(int level) {
+        long start = System.nanoTime();
+        List<T> nodes = null;
+        try {
+            return nodes = tree.nodesAtLevel(level);
+        } finally {
+            record(Operation.NODES_AT_LEVEL, start, sizeOf(nodes));
+        }
+    }
+
+    @Override
+    public boolean isLeaf(T node) {
+        long start = System.nanoTime();
+        try {
+            return tree.isLeaf(node);
+        } finally {
+            record(Operation.IS_LEAF, start, -1);
+        }
+    }
+
+    @Override
+    public long hash(T node) {
+        long start = System.nanoTime();
+        try {
+            return tree.hash(node);
+        } finally {
+            record(Operation.HASH, start, -1);
+        }
+    }
+
+    @Override
+    public Stream<T> stream() {
+        return tree.stream();
+    }
+
+    @Override
+    public Stream<T> preOrder(T node) {
+        return tree.preOrder(node);
+    }
+
+    @Override
+    public Stream<T> preOrder(T node, int maxDepth) {
+        return tree.preOrder(node, maxDepth);
+    }
+
+    @Override
+    public Stream<T> postOrder(T node) {
+        return tree.postOrder(node);
+    }
+
+    @Override
+    public Stream<T> breadthFirst(T node) {
+        return tree.breadthFirst(node);
+    }
+
+    @Override
+    public List<T> query(T scope, Predicate<? super T> predicate, int offset, int limit) {
+        long start = System.nanoTime();
+        List<T> nodes = null;
+        try {
+            return nodes = tree.query(scope, predicate, offset, limit);
+        } finally {
+            record(Operation.QUERY, start, sizeOf(nodes));
+        }
+    }
+
+    @Override
+    public void addNode(T node) {
+        long start = System.nanoTime();
+        try {
+            tree.addNode(node);
+        } finally {
+            record(Operation.ADD_NODE, start, -1);
+        }
+    }
+
+    @Override
+    public void addNodes(Collection<T> nodes) {
+        long start = System.nanoTime();
+        try {
+            tree.addNodes(nodes);
+        } finally {
+            record(Operation.ADD_NODES, start, -1);
+        }
+    }
+
+    @Override
+    public void removeNode(T node) {
+        long start = System.nanoTime();
+        try {
+            tree.removeNode(node);
+        } finally {
+            record(Operation.REMOVE_NODE, start, -1);
+        }
+    }
+
+    @Override
+    public void moveNode(T node, T parent) {
+        long start = System.nanoTime();
+        try {
+            tree.moveNode(node, parent);
+        } finally {
+            record(Operation.MOVE_NODE, start, -1);
+        }
+    }
+
+    @Override
+    public Tree<T> detach(T node) {
+        long start = System.nanoTime();
+        try {
+            return tree.detach(node);
+        } finally {
+            record(Operation.DETACH, start, -1);
+        }
+    }
+
+    @Override
+    public Tree<T> subtree(T node) {
+        long start = System.nanoTime();
+        try {
+            return tree.subtree(node);
+        } finally {
+            record(Operation.SUBTREE, start, -1);
+        }
+    }
+
+    @Override
+    public Tree<T> localTree(Collection<T> nodes) {
+        long start = System.nanoTime();
+        try {
+            return tree.localTree(nodes);
+        } finally {
+            record(Operation.LOCAL_TREE, start, -1);
+        }
+    }
+
+    @Override
+    public SnapshotTree<T> freeze() {
+        long start = System.nanoTime();
+        try {
+            return tree.freeze();
+        } finally {
+            record(Operation.FREEZE, start, -1);
+        }
+    }
+
+}
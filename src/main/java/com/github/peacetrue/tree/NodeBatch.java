@@ -0,0 +1,110 @@
+package com.github.peacetrue.tree;
+
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * 批量添加的节点，一次性校验所有节点，并按父节点在前的顺序重新排列，
+ * 使节点集合可以乱序提交，父节点尚未出现的节点暂存到其父节点到达后再处理。
+ * <p>
+ * 使用{@link KeyPredicate}时通过主键散列关联批次内的节点，复杂度为 O(批次大小)；
+ * 否则需要两两比较批次内的节点。
+ *
+ * @author xiayx
+ */
+final class NodeBatch {
+
+    private NodeBatch() {
+    }
+
+    /**
+     * 校验并排序批量添加的节点
+     *
+     * @param tree              目标树
+     * @param nodes             批量添加的节点
+     * @param rootPredicate     根节点判断
+     * @param relationPredicate 节点关系判断
+     * @param contains          节点是否已存在于目标树中
+     * @param parentInTree      节点的父节点是否已存在于目标树中
+     * @param <T>               节点
+     * @return 父节点在前、同一层级保持提交顺序的节点
+     * @throws InvalidTreeException 如果存在重复的节点、目标树为空时根节点不唯一，或者存在无法关联到树中的节点
+     */
+    @SuppressWarnings("unchecked")
+    static <T> List<T> sort(Tree<T> tree, Collection<T> nodes,
+                            RootPredicate<T> rootPredicate, RelationPredicate<T> relationPredicate,
+                            Predicate<T> contains, Predicate<T> parentInTree) throws InvalidTreeException {
+        List<T> list = new ArrayList<>(Objects.requireNonNull(nodes));
+        int size = list.size();
+        Optional<T> root = tree.getRoot();
+        List<T> roots = new ArrayList<>();
+        Set<T> duplicates = new LinkedHashSet<>(), seen = new HashSet<>(size * 4 / 3 + 1);
+        int rootIndex = -1;
+        for (int i = 0; i < size; i++) {
+            T node = Objects.requireNonNull(list.get(i));
+            if (!seen.add(node) || contains.test(node)) duplicates.add(node);
+            if (!root.isPresent() && rootPredicate.isRoot(node)) {
+                roots.add(node);
+                rootIndex = i;
+            }
+        }
+
+        // 定位批次内的父节点
+        int[] parents = new int[size];
+        if (relationPredicate instanceof KeyPredicate) {
+            KeyPredicate<T, Object> keyPredicate = (KeyPredicate<T, Object>) relationPredicate;
+            Map<Object, Integer> keys = new HashMap<>(size * 4 / 3 + 1);
+            for (int i = 0; i < size; i++) {
+                if (keys.putIfAbsent(keyPredicate.getKey(list.get(i)), i) != null) duplicates.add(list.get(i));
+            }
+            for (int i = 0; i < size; i++) {
+                Object parentKey = keyPredicate.getParentKey(list.get(i));
+                Integer parent = parentKey == null ? null : keys.get(parentKey);
+                parents[i] = parent == null || parent == i ? -1 : parent;
+            }
+        } else {
+            for (int i = 0; i < size; i++) {
+                parents[i] = -1;
+                for (int j = 0; j < size; j++) {
+                    if (j != i && relationPredicate.isParentOf(list.get(j), list.get(i))) {
+                        parents[i] = j;
+                        break;
+                    }
+                }
+            }
+        }
+
+        if (roots.size() == 1) parents[rootIndex] = -1;
+        else rootIndex = -1;
+
+        // 从根节点和父节点已在树中的节点开始广度优先遍历，无法到达的节点是孤儿节点
+        int[] firstChild = new int[size], nextSibling = new int[size], queue = new int[size];
+        Arrays.fill(firstChild, -1);
+        int tail = 0;
+        for (int i = size - 1; i >= 0; i--) {
+            if (parents[i] < 0) continue;
+            nextSibling[i] = firstChild[parents[i]];
+            firstChild[parents[i]] = i;
+        }
+        for (int i = 0; i < size; i++) {
+            if (i == rootIndex) queue[tail++] = i;
+            else if (parents[i] < 0 && root.isPresent() && parentInTree.test(list.get(i))) queue[tail++] = i;
+        }
+        for (int head = 0; head < tail; head++) {
+            for (int child = firstChild[queue[head]]; child >= 0; child = nextSibling[child]) queue[tail++] = child;
+        }
+
+        List<T> sorted = new ArrayList<>(size);
+        for (int i = 0; i < tail; i++) sorted.add(list.get(queue[i]));
+        boolean rootValid = root.isPresent() || roots.size() == 1 || size == 0;
+        if (!rootValid || !duplicates.isEmpty() || tail < size) {
+            Set<T> reached = new HashSet<>(sorted);
+            List<T> orphans = new ArrayList<>();
+            for (T node : list) {
+                if (!reached.contains(node)) orphans.add(node);
+            }
+            throw new InvalidTreeException(root.map(Collections::singletonList).orElse(roots), new ArrayList<>(duplicates), orphans);
+        }
+        return sorted;
+    }
+}
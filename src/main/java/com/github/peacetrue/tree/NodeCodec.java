@@ -0,0 +1,30 @@
+package com.github.peacetrue.tree;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 节点编解码器，用于树的二进制格式
+ *
+ * @param <T> 节点
+ * @author xiayx
+ * @see TreeFormat
+ */
+public interface NodeCodec<T> {
+
+    /**
+     * 编码节点
+     *
+     * @param node 节点
+     * @return 节点的字节
+     */
+    byte[] encode(T node);
+
+    /**
+     * 解码节点
+     *
+     * @param buffer 只包含当前节点字节的缓冲区，可能是内存映射文件的一部分，解码后不能继续持有
+     * @return 节点
+     */
+    T decode(ByteBuffer buffer);
+
+}
@@ -0,0 +1,170 @@
+package com.github.peacetrue.tree;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntPredicate;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * 并行构造树，适用于大规模节点集合的一次性加载。
+ * <p>
+ * 在{@link ForkJoinPool}中并行地定位每个节点的父节点、检查根节点和重复节点，
+ * 校验失败时通过{@link InvalidTreeException}一次性报告所有无效的节点，
+ * 而不是像{@link GenericTree}那样在第一个无效节点处失败。
+ * 校验通过后组装成一颗{@link SnapshotTree}，同一层级节点的排序等同于其在节点集合中的顺序。
+ * <p>
+ * 使用{@link KeyPredicate}时通过主键散列定位父节点，复杂度为 O(n/p)；
+ * 否则需要两两比较节点，复杂度为 O(n²/p)，p 为并行度。
+ *
+ * @author xiayx
+ */
+public class ParallelTreeBuilder<T> {
+
+    private final RootPredicate<T> rootPredicate;
+    private final RelationPredicate<T> relationPredicate;
+    private final ForkJoinPool pool;
+
+    public ParallelTreeBuilder(RootPredicate<T> rootPredicate, RelationPredicate<T> relationPredicate) {
+        this(rootPredicate, relationPredicate, ForkJoinPool.commonPool());
+    }
+
+    public ParallelTreeBuilder(RootPredicate<T> rootPredicate, RelationPredicate<T> relationPredicate, ForkJoinPool pool) {
+        this.rootPredicate = Objects.requireNonNull(rootPredicate);
+        this.relationPredicate = Objects.requireNonNull(relationPredicate);
+        this.pool = Objects.requireNonNull(pool);
+    }
+
+    public ParallelTreeBuilder(KeyPredicate<T, ?> keyPredicate) {
+        this(keyPredicate, keyPredicate);
+    }
+
+    public ParallelTreeBuilder(KeyPredicate<T, ?> keyPredicate, ForkJoinPool pool) {
+        this(keyPredicate, keyPredicate, pool);
+    }
+
+    /**
+     * 构造树
+     *
+     * @param nodes 节点集合
+     * @return 快照树
+     * @throws InvalidTreeException 如果节点集合无法组成有效树
+     */
+    public SnapshotTree<T> build(Collection<T> nodes) throws InvalidTreeException {
+        List<T> list = new ArrayList<>(Objects.requireNonNull(nodes));
+        return pool.submit(() -> doBuild(list)).join();
+    }
+
+    private SnapshotTree<T> doBuild(List<T> nodes) {
+        int size = nodes.size();
+        Map<Object, Integer> positions = new ConcurrentHashMap<>(size * 4 / 3 + 1);
+        BitSet duplicates = collect(size, i -> positions.putIfAbsent(nodes.get(i), i) != null);
+        BitSet roots = collect(size, i -> rootPredicate.isRoot(nodes.get(i)));
+        int[] parents = new int[size];
+        if (relationPredicate instanceof KeyPredicate) {
+            duplicates.or(resolveByKey(nodes, roots, parents));
+        } else {
+            IntStream.range(0, size).parallel().forEach(i -> parents[i] = roots.get(i) ? -1 : resolve(nodes, i));
+        }
+
+        BitSet orphans = collect(size, i -> parents[i] < 0 && !roots.get(i));
+        int[] preOrder = new int[0];
+        if (roots.cardinality() == 1 && duplicates.isEmpty()) {
+            preOrder = preOrder(parents, roots.nextSetBit(0));
+            // 父子关系成环的节点无法从根节点到达
+            if (preOrder.length < size) {
+                BitSet unreachable = new BitSet(size);
+                unreachable.set(0, size);
+                for (int position : preOrder) unreachable.clear(position);
+                orphans.or(unreachable);
+            }
+        }
+        if (roots.cardinality() != 1 || !duplicates.isEmpty() || !orphans.isEmpty()) {
+            throw new InvalidTreeException(select(nodes, roots), select(nodes, duplicates), select(nodes, orphans));
+        }
+        return toSnapshot(nodes, parents, preOrder);
+    }
+
+    /** 按先序重新排列节点，构造快照树 */
+    private static <T> SnapshotTree<T> toSnapshot(List<T> nodes, int[] parents, int[] preOrder) {
+        int size = preOrder.length;
+        int[] ranks = new int[size];
+        for (int i = 0; i < size; i++) ranks[preOrder[i]] = i;
+        Object[] orderedNodes = new Object[size];
+        int[] orderedParents = new int[size];
+        for (int i = 0; i < size; i++) {
+            orderedNodes[i] = nodes.get(preOrder[i]);
+            int parent = parents[preOrder[i]];
+            orderedParents[i] = parent < 0 ? -1 : ranks[parent];
+        }
+        return new SnapshotTree<>(orderedNodes, orderedParents);
+    }
+
+    /** 并行地收集满足条件的节点序号 */
+    private static BitSet collect(int size, IntPredicate predicate) {
+        return IntStream.range(0, size).parallel().filter(predicate)
+                .collect(BitSet::new, BitSet::set, BitSet::or);
+    }
+
+    private static <T> List<T> select(List<T> nodes, BitSet positions) {
+        return positions.stream().mapToObj(nodes::get).collect(Collectors.toList());
+    }
+
+    /** 两两比较节点，定位第 i 个节点的父节点 */
+    private int resolve(List<T> nodes, int i) {
+        T node = nodes.get(i);
+        for (int j = 0; j < nodes.size(); j++) {
+            if (j != i && relationPredicate.isParentOf(nodes.get(j), node)) return j;
+        }
+        return -1;
+    }
+
+    /** 通过主键散列定位父节点，返回主键重复的节点序号 */
+    @SuppressWarnings("unchecked")
+    private BitSet resolveByKey(List<T> nodes, BitSet roots, int[] parents) {
+        KeyPredicate<T, Object> keyPredicate = (KeyPredicate<T, Object>) relationPredicate;
+        int size = nodes.size();
+        Map<Object, Integer> keys = new ConcurrentHashMap<>(size * 4 / 3 + 1);
+        BitSet duplicates = collect(size, i -> keys.putIfAbsent(keyPredicate.getKey(nodes.get(i)), i) != null);
+        IntStream.range(0, size).parallel().forEach(i -> {
+            if (roots.get(i)) {
+                parents[i] = -1;
+                return;
+            }
+            Object parentKey = keyPredicate.getParentKey(nodes.get(i));
+            Integer parent = parentKey == null ? null : keys.get(parentKey);
+            parents[i] = parent == null || parent == i ? -1 : parent;
+        });
+        return duplicates;
+    }
+
+    /** 从根节点开始先序遍历，返回可到达节点的序号，同一层级节点按序号排列 */
+    private static int[] preOrder(int[] parents, int root) {
+        int size = parents.length;
+        // 以首个子节点和下一个兄弟节点表示子节点列表
+        int[] firstChild = new int[size], nextSibling = new int[size];
+        Arrays.fill(firstChild, -1);
+        for (int i = size - 1; i >= 0; i--) {
+            if (parents[i] < 0) continue;
+            nextSibling[i] = firstChild[parents[i]];
+            firstChild[parents[i]] = i;
+        }
+        int[] preOrder = new int[size], stack = new int[size];
+        int count = 0, top = 0;
+        stack[top++] = root;
+        while (top > 0) {
+            int current = stack[--top];
+            preOrder[count++] = current;
+            // 逆序压栈，使出栈顺序与序号顺序一致
+            int first = top;
+            for (int child = firstChild[current]; child >= 0; child = nextSibling[child]) stack[top++] = child;
+            for (int i = first, j = top - 1; i < j; i++, j--) {
+                int temp = stack[i];
+                stack[i] = stack[j];
+                stack[j] = temp;
+            }
+        }
+        return Arrays.copyOf(preOrder, count);
+    }
+}
@@ -14,4 +14,19 @@ public interface RootPredicate<T> {
      * @return 如果是根节点，返回{@code true}，，否则返回{@code false}
      */
     boolean isRoot(T node);
+
+    /**
+     * 构造从树中分离出的分支的根节点判断。
+     * <p>
+     * 分支的根节点是原树中父节点为指定节点的节点，而不限定为分支当前的根节点，
+     * 因此删除分支的根节点后，仍可以添加原来的根节点或者与其同级的节点作为新的根节点。
+     *
+     * @param relationPredicate 原树的节点关系判断
+     * @param parent            分支的根节点在原树中的父节点
+     * @param <T>               节点
+     * @return 根节点判断
+     */
+    static <T> RootPredicate<T> branchOf(RelationPredicate<T> relationPredicate, T parent) {
+        return node -> relationPredicate.isParentOf(parent, node);
+    }
 }
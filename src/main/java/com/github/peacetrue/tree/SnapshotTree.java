@@ -0,0 +1,500 @@
+package com.github.peacetrue.tree;
+
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * 快照树，不可修改且线程安全，适用于构造一次后被大量并发读取的场景。
+ * <p>
+ * 所有节点按先序排列在一个数组中，并通过整型数组记录每个节点的父节点位置和子树结束位置，
+ * 因此一个节点的所有子辈节点在数组中是连续的：
+ * <ul>
+ * <li>{@link #findYounger(Object)}、{@link #subtree(Object)}：返回数组区间的视图，O(1)</li>
+ * <li>{@link #findParent(Object)}：O(1)</li>
+ * <li>{@link #findParents(Object)}：沿父节点位置数组回溯，O(深度)</li>
+ * <li>{@link #findChildren(Object)}：沿子树结束位置跳跃，O(子节点数)</li>
+ * <li>{@link #isAncestorOf(Object, Object)}：比较位置区间，O(1)</li>
+ * <li>{@link #findSameParent(Object, Object)}：查询先序区间内深度最小的节点，O(1)</li>
+ * <li>{@link #size(Object)}、{@link #isLeaf(Object)}：O(1)</li>
+ * <li>{@link #depth(Object)}、{@link #height()}：O(1)</li>
+ * <li>{@link #hash(Object)}：O(1)</li>
+ * <li>{@link #nodesAtLevel(int)}：O(该层级节点数)</li>
+ * </ul>
+ * 节点到位置的映射使用开放寻址的整型散列表，不为每个节点创建额外对象。
+ * 按层级分组的深度索引在首次按深度查询时构造，占用 O(n) 的整型空间；
+ * 查找共同父节点使用的稀疏表在首次查询时构造，占用 O(n·log n) 的整型空间；
+ * 子树散列在首次查询时自后向前一次计算，占用 O(n) 的长整型空间。
+ * <p>
+ * 注意事项：
+ * <ul>
+ * <li>{@link #getNodes()}按先序返回节点，同一层级树节点的排序与源树一致</li>
+ * <li>{@link #addNode(Object)}、{@link #removeNode(Object)}抛出{@link UnsupportedOperationException}</li>
+ * </ul>
+ *
+ * @author xiayx
+ * @see Tree#freeze()
+ */
+public final class SnapshotTree<T> implements Tree<T> {
+
+    /** 先序排列的节点 */
+    private final Object[] nodes;
+    /** 父节点位置，根节点为 -1 */
+    private final int[] parents;
+    /** 子树结束位置（不含），节点 i 的子树占据区间 [i, ends[i]) */
+    private final int[] ends;
+    /** 节点位置的散列表，存储位置 + 1，0 表示空槽 */
+    private final int[] table;
+    /** 当前树在数组中的区间 [from, to)，子树与源树共享数组 */
+    private final int from, to;
+    /** 深度索引，首次按深度查询时构造 */
+    private volatile Levels levels;
+    /** 共同父节点索引，首次查询时构造 */
+    private volatile SparseTable sparseTable;
+    /** 相对位置上节点的子树散列，首次查询时构造 */
+    private volatile long[] hashes;
+
+    private SnapshotTree(Object[] nodes, int[] parents, int[] ends, int[] table, int from, int to) {
+        this.nodes = nodes;
+        this.parents = parents;
+        this.ends = ends;
+        this.table = table;
+        this.from = from;
+        this.to = to;
+    }
+
+    /**
+     * 通过先序排列的节点及其父节点位置构造快照树，不校验节点
+     *
+     * @param nodes   先序排列的节点
+     * @param parents 父节点位置，根节点为 -1
+     */
+    SnapshotTree(Object[] nodes, int[] parents) {
+        this(nodes, parents, toEnds(parents), toTable(nodes), 0, nodes.length);
+    }
+
+    /** 通过父节点位置计算子树结束位置 */
+    private static int[] toEnds(int[] parents) {
+        int[] ends = new int[parents.length];
+        for (int i = parents.length - 1; i >= 0; i--) {
+            if (ends[i] == 0) ends[i] = i + 1;
+            if (parents[i] >= 0 && ends[parents[i]] < ends[i]) ends[parents[i]] = ends[i];
+        }
+        return ends;
+    }
+
+    private static int[] toTable(Object[] nodes) {
+        int[] table = new int[Math.max(2, Integer.highestOneBit(Math.max(1, nodes.length) * 2 - 1) << 1)];
+        for (int i = 0; i < nodes.length; i++) {
+            int slot = slot(nodes[i], table.length);
+            while (table[slot] != 0) slot = (slot + 1) & (table.length - 1);
+            table[slot] = i + 1;
+        }
+        return table;
+    }
+
+    private static int slot(Object node, int length) {
+        int hash = node.hashCode() * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & (length - 1);
+    }
+
+    /**
+     * 复制指定树，构造快照树
+     *
+     * @param tree 树
+     * @param <T>  节点
+     * @return 快照树
+     */
+    public static <T> SnapshotTree<T> of(Tree<T> tree) {
+        if (tree instanceof SnapshotTree) return (SnapshotTree<T>) tree;
+        int size = tree.getNodes().size();
+        Object[] nodes = new Object[size];
+        int[] parents = new int[size];
+        int position = 0;
+        Optional<T> root = tree.getRoot();
+        if (root.isPresent()) {
+            // 栈中存储节点及其父节点位置
+            Deque<Object[]> stack = new ArrayDeque<>();
+            stack.push(new Object[]{root.get(), -1});
+            while (!stack.isEmpty()) {
+                Object[] current = stack.pop();
+                if (position == nodes.length) {
+                    nodes = Arrays.copyOf(nodes, position * 2 + 1);
+                    parents = Arrays.copyOf(parents, position * 2 + 1);
+                }
+                @SuppressWarnings("unchecked")
+                T node = (T) current[0];
+                nodes[position] = node;
+                parents[position] = (Integer) current[1];
+                List<T> children = tree.findChildren(node);
+                for (int i = children.size() - 1; i >= 0; i--) stack.push(new Object[]{children.get(i), position});
+                position++;
+            }
+        }
+        if (position < nodes.length) {
+            nodes = Arrays.copyOf(nodes, position);
+            parents = Arrays.copyOf(parents, position);
+        }
+        return new SnapshotTree<>(nodes, parents);
+    }
+
+    /** 获取节点在数组中的位置，不在当前树中返回 -1 */
+    private int indexOf(Object node) {
+        if (node == null) return -1;
+        int slot = slot(node, table.length);
+        int position;
+        while ((position = table[slot]) != 0) {
+            if (node.equals(nodes[position - 1])) {
+                position--;
+                return position >= from && position < to ? position : -1;
+            }
+            slot = (slot + 1) & (table.length - 1);
+        }
+        return -1;
+    }
+
+    /** 获取节点在数组中的位置，不在当前树中抛出异常 */
+    int positionOf(T node) {
+        int position = indexOf(node);
+        if (position < 0) throw new NodeAbsentException(node);
+        return position;
+    }
+
+    @SuppressWarnings("unchecked")
+    T nodeAt(int position) {
+        return (T) nodes[position];
+    }
+
+    /** 获取节点的子树结束位置（不含） */
+    int endOf(int position) {
+        return ends[position];
+    }
+
+    /** 获取数组区间 [from, to) 的只读视图 */
+    @SuppressWarnings("unchecked")
+    private List<T> slice(int from, int to) {
+        return Collections.unmodifiableList((List<T>) Arrays.asList(nodes).subList(from, to));
+    }
+
+    @Override
+    public Optional<T> getRoot() {
+        return from < to ? Optional.of(nodeAt(from)) : Optional.empty();
+    }
+
+    @Override
+    public Collection<T> getNodes() {
+        return slice(from, to);
+    }
+
+    @Override
+    public boolean contains(T node) {
+        return indexOf(node) >= 0;
+    }
+
+    @Override
+    public Optional<T> findParent(T node) {
+        int position = indexOf(node);
+        return position > from ? Optional.of(nodeAt(parents[position])) : Optional.empty();
+    }
+
+    @Override
+    public List<T> findParents(T node) {
+        int position = indexOf(node);
+        LinkedList<T> parents = new LinkedList<>();
+        if (position < 0) return parents;
+        while (position > from) parents.addFirst(nodeAt(position = this.parents[position]));
+        return parents;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * 子辈节点位于父辈节点的子树区间内，O(1)
+     */
+    @Override
+    public boolean isAncestorOf(T ancestor, T node) {
+        int ancestorPosition = indexOf(ancestor), position = indexOf(node);
+        return ancestorPosition >= 0 && ancestorPosition < position && position < ends[ancestorPosition];
+    }
+
+    /**
+     * 查找两个节点最近共同的父节点，O(1)
+     * <p>
+     * 示例中：NullPointerException和CloneNotSupportedException最近共同的父节点是Exception，
+     * Exception和NullPointerException最近共同的父节点是Throwable
+     *
+     * @param node  节点
+     * @param other 另一个节点
+     * @return 最近共同的父节点，任一节点不存在于树中或者包含根节点时返回{@link Optional#empty()}
+     */
+    public Optional<T> findSameParent(T node, T other) {
+        return findSameParent(Arrays.asList(node, other));
+    }
+
+    /**
+     * 查找多个节点最近共同的父节点
+     * <p>
+     * 先序序列中，所有节点最近共同的父辈节点等同于位置最小和最大两个节点的最近共同父辈节点，
+     * 因此只需查询一次稀疏表，O(节点数)
+     *
+     * @param nodes 节点集合
+     * @return 最近共同的父节点，节点集合为空、任一节点不存在于树中或者包含根节点时返回{@link Optional#empty()}
+     */
+    public Optional<T> findSameParent(Collection<T> nodes) {
+        int min = Integer.MAX_VALUE, max = -1;
+        for (T node : nodes) {
+            int position = indexOf(node);
+            if (position < 0) return Optional.empty();
+            min = Math.min(min, position);
+            max = Math.max(max, position);
+        }
+        if (max < 0) return Optional.empty();
+        int ancestor = min == max ? min : sparseTable().ancestor(min - from, max - from) + from;
+        // 最近共同父辈节点本身在节点集合中时（只可能是位置最小的节点），取其父节点
+        if (ancestor == min) ancestor = ancestor == from ? -1 : parents[ancestor];
+        return ancestor < 0 ? Optional.empty() : Optional.of(nodeAt(ancestor));
+    }
+
+    /**
+     * 查找多个节点所有共同的父节点，按根节点->子节点的顺序排列
+     *
+     * @param nodes 节点集合
+     * @return 所有共同的父节点，没有共同的父节点时返回空集合
+     */
+    public List<T> findSameParents(Collection<T> nodes) {
+        Optional<T> parent = findSameParent(nodes);
+        if (!parent.isPresent()) return new LinkedList<>();
+        List<T> parents = findParents(parent.get());
+        parents.add(parent.get());
+        return parents;
+    }
+
+    private SparseTable sparseTable() {
+        SparseTable sparseTable = this.sparseTable;
+        // 并发构造时结果相同，无需加锁
+        if (sparseTable == null) this.sparseTable = sparseTable = new SparseTable(parents, from, to, levels().depths);
+        return sparseTable;
+    }
+
+    private Levels levels() {
+        Levels levels = this.levels;
+        if (levels == null) this.levels = levels = new Levels(parents, from, to);
+        return levels;
+    }
+
+    /** 按层级分组的深度索引，深度均相对于当前树的根节点 */
+    private static final class Levels {
+
+        /** 相对位置上节点的深度 */
+        private final int[] depths;
+        /** 按层级分组的位置，同一层级内按先序排列 */
+        private final int[] positions;
+        /** 第 k 层的位置位于 positions 的区间 [starts[k], starts[k + 1]) */
+        private final int[] starts;
+
+        Levels(int[] parents, int from, int to) {
+            int size = to - from, height = size == 0 ? 0 : 1;
+            this.depths = new int[size];
+            for (int i = 1; i < size; i++) {
+                depths[i] = depths[parents[i + from] - from] + 1;
+                if (depths[i] >= height) height = depths[i] + 1;
+            }
+            this.starts = new int[height + 1];
+            for (int depth : depths) starts[depth + 1]++;
+            for (int k = 1; k <= height; k++) starts[k] += starts[k - 1];
+            this.positions = new int[size];
+            int[] cursors = Arrays.copyOf(starts, height);
+            for (int i = 0; i < size; i++) positions[cursors[depths[i]]++] = i + from;
+        }
+    }
+
+    /**
+     * 区间最小深度的稀疏表，位置均相对于当前树的起始位置。
+     * <p>
+     * 先序序列中，位置 u &lt; v 的两个节点，其最近共同父辈节点是区间 (u, v] 内深度最小节点的父节点；
+     * 如果 u 是 v 的父辈节点，则为 u 本身。
+     */
+    private static final class SparseTable {
+
+        private final int[] parents;
+        private final int[] depths;
+        /** levels[k][i] 为区间 [i, i + 2^k) 内深度最小的位置 */
+        private final int[][] levels;
+
+        SparseTable(int[] parents, int from, int to, int[] depths) {
+            int size = to - from;
+            this.parents = new int[size];
+            this.depths = depths;
+            for (int i = 1; i < size; i++) this.parents[i] = parents[i + from] - from;
+            this.levels = new int[Math.max(1, 32 - Integer.numberOfLeadingZeros(size))][];
+            levels[0] = new int[size];
+            for (int i = 0; i < size; i++) levels[0][i] = i;
+            for (int k = 1; k < levels.length; k++) {
+                int[] previous = levels[k - 1], level = levels[k] = new int[size - (1 << k) + 1];
+                for (int i = 0; i < level.length; i++) level[i] = shallower(previous[i], previous[i + (1 << (k - 1))]);
+            }
+        }
+
+        private int shallower(int position, int other) {
+            return depths[position] <= depths[other] ? position : other;
+        }
+
+        /** 位置 u &lt; v 的两个节点最近共同的父辈节点，可能是 u 本身 */
+        int ancestor(int u, int v) {
+            int k = 31 - Integer.numberOfLeadingZeros(v - u);
+            return parents[shallower(levels[k][u + 1], levels[k][v - (1 << k) + 1])];
+        }
+    }
+
+    @Override
+    public List<T> findChildren(T node) {
+        int position = indexOf(node);
+        List<T> children = new ArrayList<>();
+        if (position < 0) return children;
+        for (int child = position + 1; child < ends[position]; child = ends[child]) children.add(nodeAt(child));
+        return children;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @return 只读的子辈节点，与快照树共享数组
+     */
+    @Override
+    public List<T> findYounger(T node) {
+        int position = indexOf(node);
+        return position < 0 ? Collections.emptyList() : slice(position + 1, ends[position]);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @return 数组区间的流，可以被均匀分割
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public Stream<T> preOrder(T node) {
+        int position = indexOf(node);
+        return position < 0 ? Stream.of(node) : Arrays.stream((T[]) nodes, position, ends[position]);
+    }
+
+    @Override
+    public int depth(T node) {
+        return levels().depths[positionOf(node) - from];
+    }
+
+    @Override
+    public int size(T node) {
+        int position = positionOf(node);
+        return ends[position] - position;
+    }
+
+    @Override
+    public int height() {
+        return levels().starts.length - 1;
+    }
+
+    @Override
+    public List<T> nodesAtLevel(int level) {
+        if (level < 0) throw new IllegalArgumentException(String.format("层级[%s]不能小于 0", level));
+        Levels levels = levels();
+        List<T> nodes = new ArrayList<>();
+        if (level >= levels.starts.length - 1) return nodes;
+        for (int i = levels.starts[level]; i < levels.starts[level + 1]; i++) nodes.add(nodeAt(levels.positions[i]));
+        return nodes;
+    }
+
+    @Override
+    public boolean isLeaf(T node) {
+        int position = positionOf(node);
+        return ends[position] == position + 1;
+    }
+
+    @Override
+    public long hash(T node) {
+        long[] hashes = this.hashes;
+        // 并发构造时结果相同，无需加锁
+        if (hashes == null) this.hashes = hashes = toHashes();
+        return hashes[positionOf(node) - from];
+    }
+
+    /** 自后向前计算子树散列，子节点总是先于父节点完成 */
+    private long[] toHashes() {
+        long[] hashes = new long[to - from];
+        for (int position = to - 1; position >= from; position--) {
+            long hash = SubtreeHash.seed(nodes[position]);
+            for (int child = position + 1, previous = -1; child < ends[position]; previous = child, child = ends[child]) {
+                hash += SubtreeHash.term(hashes[child - from], previous < 0 ? null : nodes[previous]);
+            }
+            hashes[position - from] = hash;
+        }
+        return hashes;
+    }
+
+    @Override
+    public void addNode(T node) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void removeNode(T node) {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @return 与快照树共享数组的子树，O(1)
+     */
+    @Override
+    public SnapshotTree<T> subtree(T node) {
+        int position = positionOf(node);
+        return new SnapshotTree<>(nodes, parents, ends, table, position, ends[position]);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * 快照树不可修改，视图与{@link #subtree(Object)}相同
+     */
+    @Override
+    public SnapshotTree<T> view(T node) {
+        return subtree(node);
+    }
+
+    @Override
+    public SnapshotTree<T> localTree(Collection<T> nodes) {
+        BitSet selected = new BitSet(to);
+        for (T node : nodes) {
+            // 自下而上标记父辈节点，遇到已标记的节点即停止
+            int position = positionOf(node);
+            while (position >= from && !selected.get(position)) {
+                selected.set(position);
+                position = position == from ? -1 : parents[position];
+            }
+        }
+        // 先序序列的子序列仍然是先序
+        int size = selected.cardinality();
+        Object[] localNodes = new Object[size];
+        int[] localParents = new int[size];
+        int[] mapping = new int[size];
+        int index = 0;
+        for (int position = selected.nextSetBit(0); position >= 0; position = selected.nextSetBit(position + 1)) {
+            localNodes[index] = this.nodes[position];
+            mapping[index] = position;
+            localParents[index] = position == from ? -1 : Arrays.binarySearch(mapping, 0, index, parents[position]);
+            index++;
+        }
+        return new SnapshotTree<>(localNodes, localParents);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @return 当前树
+     */
+    @Override
+    public SnapshotTree<T> freeze() {
+        return this;
+    }
+
+}
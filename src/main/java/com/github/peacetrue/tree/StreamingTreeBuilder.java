@@ -0,0 +1,145 @@
+package com.github.peacetrue.tree;
+
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * 流式构造树，逐个接收包含主键和父主键的节点，例如：逐行读取的数据库结果集或 CSV 文件，
+ * 不需要先将所有节点放入集合中。
+ * <p>
+ * 父节点已到达的节点立即关联到父节点，否则按父主键暂存到待处理索引，父节点到达时再依次关联，
+ * 因此节点可以按任意顺序到达，峰值内存接近最终的树加上暂存的节点。
+ * 同一层级节点的排序等同于其到达的顺序。
+ * <p>
+ * 接收节点时只关联父子关系，O(1)，深度、子树大小、子树散列、层级和区间编号在{@link #build()}中一次计算，
+ * 总体复杂度为 O(节点数)，与树的形状无关。
+ * <p>
+ * 所有节点接收完成后通过{@link #build()}获取构造的{@link IndexedTree}，
+ * 根节点不唯一、主键重复或者存在无法关联到树中的节点时，一次性报告所有无效的节点。
+ * <p>
+ * 注意事项：
+ * <ul>
+ * <li>构造完成后不能继续接收节点</li>
+ * <li>不支持并发操作</li>
+ * </ul>
+ *
+ * @author xiayx
+ */
+public class StreamingTreeBuilder<T> {
+
+    private final KeyPredicate<T, Object> keyPredicate;
+    private final IndexedTree<T> tree;
+    /** 父节点尚未到达的节点，按父主键索引 */
+    private final Map<Object, List<T>> pending = new HashMap<>();
+    private final List<T> roots = new ArrayList<>(1), duplicates = new ArrayList<>();
+    private int pendingCount;
+    private boolean built;
+
+    @SuppressWarnings("unchecked")
+    public StreamingTreeBuilder(KeyPredicate<T, ?> keyPredicate) {
+        this.keyPredicate = (KeyPredicate<T, Object>) Objects.requireNonNull(keyPredicate);
+        this.tree = new IndexedTree<>(keyPredicate);
+    }
+
+    /**
+     * 接收一个节点
+     *
+     * @param node 节点
+     * @return 当前构造器
+     * @throws IllegalStateException 如果已完成构造
+     */
+    public StreamingTreeBuilder<T> accept(T node) {
+        if (built) throw new IllegalStateException("已完成构造，不能继续接收节点");
+        Objects.requireNonNull(node);
+        if (keyPredicate.isRoot(node)) {
+            roots.add(node);
+            if (roots.size() == 1) link(node);
+        } else {
+            Object parentKey = keyPredicate.getParentKey(node);
+            if (tree.containsKey(parentKey)) {
+                link(node);
+            } else {
+                List<T> children = pending.get(parentKey);
+                if (children == null) {
+                    pending.put(parentKey, Collections.singletonList(node));
+                } else {
+                    if (children.size() == 1) pending.put(parentKey, children = new ArrayList<>(children));
+                    children.add(node);
+                }
+                pendingCount++;
+            }
+        }
+        return this;
+    }
+
+    /** 将父节点已在树中的节点加入树中，然后依次加入等待此节点的子辈节点 */
+    private void link(T node) {
+        if (!add(node)) return;
+        Deque<T> stack = new ArrayDeque<>();
+        stack.push(node);
+        while (!stack.isEmpty()) {
+            List<T> children = pending.remove(keyPredicate.getKey(stack.pop()));
+            if (children == null) continue;
+            pendingCount -= children.size();
+            for (T child : children) {
+                if (add(child)) stack.push(child);
+            }
+        }
+    }
+
+    /** 加入节点，节点或者主键重复时返回 {@code false} */
+    private boolean add(T node) {
+        if (tree.containsKey(keyPredicate.getKey(node)) || tree.contains(node)) {
+            duplicates.add(node);
+            return false;
+        }
+        tree.append(node);
+        return true;
+    }
+
+    /**
+     * 依次接收迭代器中的节点
+     *
+     * @param nodes 节点迭代器
+     * @return 当前构造器
+     */
+    public StreamingTreeBuilder<T> acceptAll(Iterator<? extends T> nodes) {
+        while (nodes.hasNext()) accept(nodes.next());
+        return this;
+    }
+
+    /**
+     * 依次接收流中的节点，流会按顺序消费
+     *
+     * @param nodes 节点流
+     * @return 当前构造器
+     */
+    public StreamingTreeBuilder<T> acceptAll(Stream<? extends T> nodes) {
+        nodes.sequential().forEachOrdered(this::accept);
+        return this;
+    }
+
+    /** @return 父节点尚未到达的节点数目 */
+    public int getPendingCount() {
+        return pendingCount;
+    }
+
+    /**
+     * 完成构造
+     *
+     * @return 索引树
+     * @throws InvalidTreeException 如果根节点不唯一、主键重复或者存在无法关联到树中的节点
+     */
+    public IndexedTree<T> build() throws InvalidTreeException {
+        boolean first = !built;
+        built = true;
+        if (roots.size() == 1 && duplicates.isEmpty() && pendingCount == 0) {
+            if (first) tree.reindex();
+            return tree;
+        }
+        List<T> orphans = new ArrayList<>(pendingCount);
+        pending.values().forEach(orphans::addAll);
+        throw new InvalidTreeException(roots, duplicates, orphans);
+    }
+
+}
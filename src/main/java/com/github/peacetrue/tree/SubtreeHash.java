@@ -0,0 +1,139 @@
+package com.github.peacetrue.tree;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+/**
+ * 子树的结构散列（Merkle 散列），所有树的实现使用相同的定义，因此不同树之间的散列可以直接比较。
+ * <p>
+ * 子树散列 = 节点自身的散列 + 每个子节点的项之和，子节点的项由其子树散列和前一个兄弟节点混合而成。
+ * 节点在树中唯一，所有 (前一个兄弟节点, 子节点) 对确定了子节点的顺序，因此散列与子节点的顺序相关；
+ * 同时各项相加可交换，某个子节点的子树散列变化时，只需替换父节点中对应的一项，O(1)，
+ * 沿父辈节点逐级更新，O(深度)。
+ * <p>
+ * 节点自身的散列由 64 位的节点指纹混合而成，默认指纹见{@link #fingerprint(Object)}。
+ * 使用{@link Object#hashCode()}作为指纹时只有 32 位，{@code hashCode} 相同的不同节点互相替换后子树散列不变，
+ * 此时需要通过{@link #all(Tree, ToLongFunction)}指定 64 位的指纹。
+ *
+ * @author xiayx
+ */
+final class SubtreeHash {
+
+    private SubtreeHash() {
+    }
+
+    /** 64 位的混合函数 */
+    private static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+        value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+        return value ^ (value >>> 31);
+    }
+
+    /**
+     * 节点默认的 64 位指纹，按取值计算，在不同的 JVM 中保持一致：
+     * 字符序列按字符计算 FNV-1a 散列，整数和字符取其数值，类取其名称的指纹，枚举取其类名和序号的指纹；
+     * 其他节点使用{@link Object#hashCode()}，只有 32 位
+     */
+    static long fingerprint(Object node) {
+        if (node instanceof CharSequence) {
+            CharSequence chars = (CharSequence) node;
+            long hash = 0xCBF29CE484222325L;
+            for (int i = 0; i < chars.length(); i++) hash = (hash ^ chars.charAt(i)) * 0x100000001B3L;
+            return hash;
+        }
+        if (node instanceof Long || node instanceof Integer || node instanceof Short || node instanceof Byte) {
+            return ((Number) node).longValue();
+        }
+        if (node instanceof Character) return (Character) node;
+        if (node instanceof Class) return fingerprint(((Class<?>) node).getName());
+        if (node instanceof Enum) {
+            Enum<?> constant = (Enum<?>) node;
+            return fingerprint(constant.getDeclaringClass().getName()) * 31 + constant.ordinal();
+        }
+        return node.hashCode();
+    }
+
+    /** 节点自身的散列，即叶子节点的子树散列 */
+    static long seed(Object node) {
+        return mix(fingerprint(node));
+    }
+
+    /**
+     * 子节点在父节点子树散列中的项
+     *
+     * @param hash     子节点的子树散列
+     * @param previous 前一个兄弟节点，没有时为 {@code null}
+     * @return 项
+     */
+    static long term(long hash, Object previous) {
+        return termOfSeed(hash, previous == null ? 0 : seed(previous));
+    }
+
+    /**
+     * 子节点在父节点子树散列中的项
+     *
+     * @param hash         子节点的子树散列
+     * @param previousSeed 前一个兄弟节点自身的散列，没有时为 0
+     * @return 项
+     */
+    private static long termOfSeed(long hash, long previousSeed) {
+        return mix(hash + previousSeed * 0x9E3779B97F4A7C15L);
+    }
+
+    /** 通过后序遍历计算指定节点的子树散列，O(子辈节点数) */
+    static <T> long of(Tree<T> tree, T node) {
+        if (!tree.contains(node)) throw new NodeAbsentException(node);
+        Map<T, Long> hashes = new HashMap<>();
+        postOrder(tree, node, SubtreeHash::fingerprint, hashes, true);
+        return hashes.get(node);
+    }
+
+    /** 通过一次后序遍历计算所有节点的子树散列，O(节点数) */
+    static <T> Map<T, Long> all(Tree<T> tree) {
+        return all(tree, SubtreeHash::fingerprint);
+    }
+
+    /**
+     * 使用指定的节点指纹，通过一次后序遍历计算所有节点的子树散列，O(节点数)
+     *
+     * @param tree        树
+     * @param fingerprint 节点的 64 位指纹，相等的节点指纹必须相同
+     * @param <T>         节点
+     * @return 所有节点的子树散列
+     */
+    static <T> Map<T, Long> all(Tree<T> tree, ToLongFunction<? super T> fingerprint) {
+        Map<T, Long> hashes = new HashMap<>();
+        tree.getRoot().ifPresent(root -> postOrder(tree, root, fingerprint, hashes, false));
+        return hashes;
+    }
+
+    /**
+     * 后序遍历计算子树散列
+     *
+     * @param release 是否在使用后移除子节点的散列，只保留起始节点的散列
+     */
+    private static <T> void postOrder(Tree<T> tree, T node, ToLongFunction<? super T> fingerprint,
+                                      Map<T, Long> hashes, boolean release) {
+        tree.postOrder(node).forEach(current -> {
+            long hash = mix(fingerprint.applyAsLong(current)), previousSeed = 0;
+            for (T child : tree.findChildren(current)) {
+                hash += termOfSeed(release ? hashes.remove(child) : hashes.get(child), previousSeed);
+                previousSeed = mix(fingerprint.applyAsLong(child));
+            }
+            hashes.put(current, hash);
+        });
+    }
+
+    /**
+     * 树是否维护了子树散列，维护时{@link Tree#hash(Object)}为 O(1)，
+     * 否则每次调用都会遍历子树计算散列。包装其他树的树取决于被包装的树。
+     */
+    static boolean isMaintained(Tree<?> tree) {
+        if (tree instanceof MeteredTree) return isMaintained(((MeteredTree<?>) tree).getTree());
+        if (tree instanceof CachingTree) return isMaintained(((CachingTree<?>) tree).getTree());
+        if (tree instanceof SubtreeView) return isMaintained(((SubtreeView<?>) tree).getTree());
+        return tree instanceof IndexedTree || tree instanceof SnapshotTree || tree instanceof ConcurrentTree;
+    }
+
+}
@@ -0,0 +1,168 @@
+package com.github.peacetrue.tree;
+
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * 子树视图，以指定节点为根节点，直接读取原树的结构，构造的复杂度为 O(1)。
+ * <p>
+ * 视图是实时的，原树的修改会立即反映到视图中，根节点被删除后视图为空；
+ * 查询限定在根节点所在的分支内，分支外的节点视为不存在。
+ * 视图不可修改，嵌套的子树视图仍然直接基于原树构造。
+ *
+ * @author xiayx
+ */
+final class SubtreeView<T> implements Tree<T> {
+
+    private final Tree<T> tree;
+    private final T root;
+
+    SubtreeView(Tree<T> tree, T root) {
+        this.tree = Objects.requireNonNull(tree);
+        this.root = Objects.requireNonNull(root);
+    }
+
+    /** @return 被包装的树 */
+    Tree<T> getTree() {
+        return tree;
+    }
+
+    @Override
+    public Optional<T> getRoot() {
+        return tree.contains(root) ? Optional.of(root) : Optional.empty();
+    }
+
+    @Override
+    public Collection<T> getNodes() {
+        return new AbstractCollection<T>() {
+            @Override
+            public Iterator<T> iterator() {
+                return SubtreeView.this.stream().iterator();
+            }
+
+            @Override
+            public int size() {
+                return tree.contains(root) ? tree.findYounger(root).size() + 1 : 0;
+            }
+        };
+    }
+
+    @Override
+    public boolean contains(T node) {
+        return root.equals(node) ? tree.contains(root) : tree.isAncestorOf(root, node);
+    }
+
+    @Override
+    public Optional<T> findParent(T node) {
+        return tree.isAncestorOf(root, node) ? tree.findParent(node) : Optional.empty();
+    }
+
+    @Override
+    public List<T> findParents(T node) {
+        if (!tree.isAncestorOf(root, node)) return Collections.emptyList();
+        List<T> parents = tree.findParents(node);
+        return new ArrayList<>(parents.subList(parents.indexOf(root), parents.size()));
+    }
+
+    @Override
+    public boolean isAncestorOf(T ancestor, T node) {
+        return contains(ancestor) && tree.isAncestorOf(ancestor, node);
+    }
+
+    @Override
+    public List<T> findChildren(T node) {
+        return contains(node) ? tree.findChildren(node) : Collections.emptyList();
+    }
+
+    @Override
+    public List<T> findYounger(T node) {
+        return contains(node) ? tree.findYounger(node) : Collections.emptyList();
+    }
+
+    @Override
+    public int depth(T node) {
+        if (!contains(node)) throw new NodeAbsentException(node);
+        return tree.depth(node) - tree.depth(root);
+    }
+
+    @Override
+    public int size(T node) {
+        if (!contains(node)) throw new NodeAbsentException(node);
+        return tree.size(node);
+    }
+
+    @Override
+    public boolean isLeaf(T node) {
+        if (!contains(node)) throw new NodeAbsentException(node);
+        return tree.isLeaf(node);
+    }
+
+    @Override
+    public long hash(T node) {
+        if (!contains(node)) throw new NodeAbsentException(node);
+        return tree.hash(node);
+    }
+
+    @Override
+    public Stream<T> preOrder(T node, int maxDepth) {
+        return contains(node) ? tree.preOrder(node, maxDepth) : Tree.super.preOrder(node, maxDepth);
+    }
+
+    @Override
+    public Stream<T> postOrder(T node) {
+        return contains(node) ? tree.postOrder(node) : Stream.of(node);
+    }
+
+    @Override
+    public Stream<T> breadthFirst(T node) {
+        return contains(node) ? tree.breadthFirst(node) : Stream.of(node);
+    }
+
+    /** @throws UnsupportedOperationException 视图不可修改 */
+    @Override
+    public void addNode(T node) {
+        throw new UnsupportedOperationException();
+    }
+
+    /** @throws UnsupportedOperationException 视图不可修改 */
+    @Override
+    public void addNodes(Collection<T> nodes) {
+        throw new UnsupportedOperationException();
+    }
+
+    /** @throws UnsupportedOperationException 视图不可修改 */
+    @Override
+    public void removeNode(T node) {
+        throw new UnsupportedOperationException();
+    }
+
+    /** @throws UnsupportedOperationException 视图不可修改 */
+    @Override
+    public Tree<T> detach(T node) {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @return 基于原树的嵌套子树视图，O(1)
+     */
+    @Override
+    public Tree<T> subtree(T node) {
+        return view(node);
+    }
+
+    @Override
+    public Tree<T> view(T node) {
+        if (!contains(node)) throw new NodeAbsentException(node);
+        return new SubtreeView<>(tree, node);
+    }
+
+    @Override
+    public Tree<T> localTree(Collection<T> nodes) {
+        for (T node : nodes) {
+            if (!contains(node)) throw new NodeAbsentException(node);
+        }
+        return freeze().localTree(nodes);
+    }
+}
@@ -1,6 +1,8 @@
 package com.github.peacetrue.tree;
 
 import java.util.*;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
 
 /**
  * 树结构
@@ -105,6 +107,34 @@ public interface Tree<T> extends IterableTree<T> {
         return parents;
     }
 
+    /**
+     * 节点ancestor是否节点node的父辈节点
+     * <p>
+     * 示例中：Throwable是RuntimeException的父辈节点，Error不是RuntimeException的父辈节点
+     *
+     * @param ancestor 父辈节点
+     * @param node     节点
+     * @return 如果是父辈节点返回 {@code true}，节点相同或者任一节点不存在于树中返回 {@code false}
+     */
+    default boolean isAncestorOf(T ancestor, T node) {
+        Optional<T> parent = Optional.of(node);
+        while ((parent = findParent(parent.get())).isPresent()) {
+            if (parent.get().equals(ancestor)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * 节点node是否节点ancestor的子辈节点
+     *
+     * @param node     节点
+     * @param ancestor 父辈节点
+     * @return 如果是子辈节点返回 {@code true}，节点相同或者任一节点不存在于树中返回 {@code false}
+     */
+    default boolean isDescendantOf(T node, T ancestor) {
+        return isAncestorOf(ancestor, node);
+    }
+
     /**
      * 查找子节点
      * <p>
@@ -144,6 +174,127 @@ public interface Tree<T> extends IterableTree<T> {
      */
     List<T> findYounger(T node);
 
+    /**
+     * 获取节点的深度，根节点的深度为 0
+     * <p>
+     * 示例中：RuntimeException的深度为 3
+     *
+     * @param node 节点
+     * @return 深度，等同于父辈节点的数目
+     * @throws NodeAbsentException 如果指定节点不存在于树中
+     */
+    default int depth(T node) throws NodeAbsentException {
+        if (!contains(node)) throw new NodeAbsentException(node);
+        return findParents(node).size();
+    }
+
+    /**
+     * 获取以指定节点为根节点的子树的节点数目
+     * <p>
+     * 示例中：RuntimeException的子树节点数目为 6
+     *
+     * @param node 节点
+     * @return 子树的节点数目，包含指定节点
+     * @throws NodeAbsentException 如果指定节点不存在于树中
+     */
+    default int size(T node) throws NodeAbsentException {
+        if (!contains(node)) throw new NodeAbsentException(node);
+        return findYounger(node).size() + 1;
+    }
+
+    /**
+     * 获取树的高度，即层级数目
+     * <p>
+     * 示例中：树的高度为 5
+     *
+     * @return 高度，没有根节点时为 0
+     */
+    default int height() {
+        int height = 0;
+        List<T> nodes = nodesAtLevel(0);
+        while (!nodes.isEmpty()) {
+            height++;
+            List<T> children = new ArrayList<>();
+            for (T node : nodes) children.addAll(findChildren(node));
+            nodes = children;
+        }
+        return height;
+    }
+
+    /**
+     * 获取指定层级的节点，根节点位于第 0 层，同一层级的节点按先序排列
+     * <p>
+     * 示例中：第 2 层的节点为[Error,Exception]
+     *
+     * @param level 层级
+     * @return 指定层级的节点，超出树的高度时返回空集合
+     * @throws IllegalArgumentException 如果层级小于 0
+     */
+    default List<T> nodesAtLevel(int level) {
+        if (level < 0) throw new IllegalArgumentException(String.format("层级[%s]不能小于 0", level));
+        List<T> nodes = getRoot().map(root -> (List<T>) new ArrayList<>(Collections.singletonList(root))).orElseGet(ArrayList::new);
+        for (int i = 0; i < level && !nodes.isEmpty(); i++) {
+            List<T> children = new ArrayList<>();
+            for (T node : nodes) children.addAll(findChildren(node));
+            nodes = children;
+        }
+        return nodes;
+    }
+
+    /**
+     * 节点是否叶子节点，即没有子节点
+     *
+     * @param node 节点
+     * @return 如果是叶子节点返回 {@code true}，否则返回 {@code false}
+     * @throws NodeAbsentException 如果指定节点不存在于树中
+     */
+    default boolean isLeaf(T node) throws NodeAbsentException {
+        if (!contains(node)) throw new NodeAbsentException(node);
+        return findChildren(node).isEmpty();
+    }
+
+    /**
+     * 获取以指定节点为根节点的子树的结构散列（Merkle 散列），由节点自身的散列和按顺序排列的子节点的子树散列组成。
+     * <p>
+     * 所有实现使用相同的定义，两颗子树的节点及关系（包括子节点的顺序）相同时散列相同，
+     * 因此可以跨树比较散列，判断子树是否相同或者是否发生了变化；散列不同的子树一定不同。
+     * 节点自身的散列来自 64 位的节点指纹：字符串、整数、字符、枚举和类按取值计算，
+     * 其他节点使用{@link Object#hashCode()}，只有 32 位，{@code hashCode} 相同的不同节点互相替换后散列不变，
+     * 需要精确比较时使用{@link TreeDiff#of(Tree, Tree, java.util.function.ToLongFunction)}指定节点指纹；
+     * 默认的{@code hashCode}（对象标识）在不同的 JVM 中不一致，此时不能跨 JVM 比较散列。
+     * 默认实现每次通过后序遍历计算，O(子辈节点数)。
+     *
+     * @param node 节点
+     * @return 子树散列
+     * @throws NodeAbsentException 如果指定节点不存在于树中
+     * @see TreeDiff
+     */
+    default long hash(T node) throws NodeAbsentException {
+        return SubtreeHash.of(this, node);
+    }
+
+    /**
+     * 分页查询以指定节点为根节点的子树中满足条件的节点，按先序排列。
+     * <p>
+     * 默认实现惰性地先序遍历子树，取够指定数目的节点后即停止遍历，不会先获取所有子辈节点。
+     * 需要反复按属性值查询时，可以使用{@link AttributeIndex}。
+     * <p>
+     * 示例中：Exception下名称以 Illegal 开头的节点为[IllegalArgumentException]
+     *
+     * @param scope     查询范围的根节点，也参与匹配
+     * @param predicate 查询条件
+     * @param offset    跳过的节点数目
+     * @param limit     最多返回的节点数目
+     * @return 满足条件的节点
+     * @throws NodeAbsentException      如果指定节点不存在于树中
+     * @throws IllegalArgumentException 如果跳过的数目或者返回的数目小于 0
+     */
+    default List<T> query(T scope, Predicate<? super T> predicate, int offset, int limit) throws NodeAbsentException {
+        if (offset < 0 || limit < 0) throw new IllegalArgumentException(String.format("分页参数[%s, %s]不能小于 0", offset, limit));
+        if (!contains(scope)) throw new NodeAbsentException(scope);
+        return preOrder(scope).filter(predicate).skip(offset).limit(limit).collect(Collectors.toList());
+    }
+
     /**
      * 添加节点，根据指定节点的父节点进行关联。
      * <p>
@@ -156,6 +307,43 @@ public interface Tree<T> extends IterableTree<T> {
      */
     void addNode(T node) throws NodeExistException, ParentAbsentException;
 
+    /**
+     * 批量添加节点，节点可以乱序提交，父节点在批次中位于子节点之后也可以正确关联。
+     * <p>
+     * 所有节点校验通过后才会添加到树中，任一节点无效时不添加任何节点。
+     * 默认实现逐轮调用{@link #addNode(Object)}，每轮添加父节点已存在的节点，失败时删除已添加的节点。
+     *
+     * @param nodes 节点集合
+     * @throws InvalidTreeException 如果存在重复的节点、空树中根节点不唯一，或者存在无法关联到树中的节点
+     */
+    default void addNodes(Collection<T> nodes) throws InvalidTreeException {
+        List<T> pending = new ArrayList<>(nodes), added = new ArrayList<>(), duplicates = new ArrayList<>();
+        int size;
+        do {
+            size = pending.size();
+            for (Iterator<T> iterator = pending.iterator(); iterator.hasNext(); ) {
+                T node = iterator.next();
+                try {
+                    addNode(node);
+                    added.add(node);
+                    iterator.remove();
+                } catch (NodeExistException e) {
+                    duplicates.add(node);
+                    iterator.remove();
+                } catch (ParentAbsentException | InvalidRootException e) {
+                    // 父节点尚未添加，留待下一轮
+                }
+            }
+        } while (!pending.isEmpty() && pending.size() < size);
+        if (duplicates.isEmpty() && pending.isEmpty()) return;
+        for (int i = added.size() - 1; i >= 0; i--) {
+            if (contains(added.get(i))) removeNode(added.get(i));
+        }
+        List<T> roots = new ArrayList<>();
+        getRoot().ifPresent(roots::add);
+        throw new InvalidTreeException(roots, duplicates, pending);
+    }
+
     /**
      * 删除节点，同时删除所有子辈节点
      *
@@ -164,6 +352,37 @@ public interface Tree<T> extends IterableTree<T> {
      */
     void removeNode(T node) throws NodeAbsentException;
 
+    /**
+     * 移动节点，将指定节点及其子辈节点关联到新的父节点下，作为其最后一个子节点。
+     * <p>
+     * 移动后节点关系以树中记录的关系为准，调用方通常需要同时修改节点中与父节点相关的属性，例如：父主键。
+     * 通过{@link RelationPredicate}实时判断节点关系的实现不支持移动节点。
+     *
+     * @param node   节点
+     * @param parent 新的父节点
+     * @throws NodeAbsentException           如果任一节点不存在于树中
+     * @throws CyclicMoveException           如果新的父节点是指定节点本身或其子辈节点
+     * @throws UnsupportedOperationException 如果当前树不支持移动节点
+     */
+    default void moveNode(T node, T parent) throws NodeAbsentException, CyclicMoveException {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * 分离以指定节点为根节点的分支，分支中的节点从当前树中删除，并组成一颗新的树返回。
+     * <p>
+     * 分支中的节点对象不会被复制，适用于将分支移动到其他树中。
+     *
+     * @param node 节点
+     * @return 分支树
+     * @throws NodeAbsentException 如果指定节点不存在于树中
+     */
+    default Tree<T> detach(T node) throws NodeAbsentException {
+        Tree<T> branch = subtree(node);
+        removeNode(node);
+        return branch;
+    }
+
     /**
      * 构造一颗以指定节点为根节点子树
      * <p>
@@ -187,6 +406,22 @@ public interface Tree<T> extends IterableTree<T> {
      */
     Tree<T> subtree(T node) throws NodeAbsentException;
 
+    /**
+     * 获取以指定节点为根节点的子树视图
+     * <p>
+     * 视图直接读取当前树的结构，构造的复杂度为 O(1)，不复制节点也不重新校验；
+     * 查询限定在指定节点所在的分支内，当前树的修改会实时反映到视图中，视图本身不可修改。
+     * 适用于逐层展开子树的场景，例如：分页展示。
+     *
+     * @param node 节点
+     * @return 子树视图
+     * @throws NodeAbsentException 如果指定节点不存在于树中
+     */
+    default Tree<T> view(T node) throws NodeAbsentException {
+        if (!contains(node)) throw new NodeAbsentException(node);
+        return new SubtreeView<>(this, node);
+    }
+
     /**
      * 构造一颗包含指定节点局部树
      * <p>
@@ -205,4 +440,16 @@ public interface Tree<T> extends IterableTree<T> {
      */
     Tree<T> localTree(Collection<T> nodes) throws NodeAbsentException;
 
+    /**
+     * 构造当前树的快照。
+     * <p>
+     * 快照不可修改且线程安全，节点按先序存储在数组中，适用于构造一次后被大量并发读取的场景。
+     * 快照构造完成后，对当前树的修改不会影响快照。
+     *
+     * @return 快照树
+     */
+    default SnapshotTree<T> freeze() {
+        return SnapshotTree.of(this);
+    }
+
 }
@@ -0,0 +1,202 @@
+package com.github.peacetrue.tree;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+/**
+ * 树的汇总器，自下而上汇总每个节点的子树取值，例如：逐级汇总预算、人数。
+ * <p>
+ * 节点的汇总值 = 依次合并节点自身的取值和所有子节点的汇总值，子节点按树中的顺序参与合并，
+ * 因此合并函数只需满足结合律，不要求满足交换律。
+ * <ul>
+ * <li>构造及{@link #refresh()}时将快照的先序数组划分为连续的区间并行计算：每个区间自后向前计算子树完全位于区间内的节点，
+ * 子树超出区间的节点（只可能是区间末尾节点的父辈节点）只合并区间内的子节点，最后自后向前合并其余的子节点。
+ * 计算不按层级递归，链状树的深度不受线程栈的限制</li>
+ * <li>通过汇总器添加、删除、移动节点或者通知节点取值变化时，只重新计算所在路径上的父辈节点，
+ * 复杂度为 O(路径上节点的子节点数之和)</li>
+ * </ul>
+ * 全量计算基于被汇总树的快照（{@link Tree#freeze()}），工作线程只读取不可修改的快照，
+ * 因此被汇总的树不需要是线程安全的，例如：{@link CachingTree}、{@link GenericTree}。
+ * <p>
+ * 注意事项：
+ * <ul>
+ * <li>取值函数和合并函数不能返回 {@code null}</li>
+ * <li>只能通过汇总器修改节点，直接修改被汇总的树后需要调用{@link #refresh()}</li>
+ * <li>重新计算父辈节点时会重新获取其取值</li>
+ * <li>不支持并发修改</li>
+ * </ul>
+ *
+ * @param <T> 节点
+ * @param <V> 汇总值
+ * @author xiayx
+ */
+public class TreeAggregator<T, V> {
+
+    /** 并行计算时每个区间的节点数目，节点总数不超过此值时在当前线程中顺序计算 */
+    private static final int RANGE_SIZE = 1 << 12;
+
+    private final Tree<T> tree;
+    private final Function<? super T, ? extends V> extractor;
+    private final BinaryOperator<V> combiner;
+    /** 节点的汇总值 */
+    private final Map<T, V> totals = new ConcurrentHashMap<>();
+
+    /**
+     * @param tree      被汇总的树
+     * @param extractor 节点自身的取值
+     * @param combiner  满足结合律的合并函数
+     */
+    public TreeAggregator(Tree<T> tree, Function<? super T, ? extends V> extractor, BinaryOperator<V> combiner) {
+        this.tree = Objects.requireNonNull(tree);
+        this.extractor = Objects.requireNonNull(extractor);
+        this.combiner = Objects.requireNonNull(combiner);
+        this.refresh();
+    }
+
+    /** 重新计算所有节点的汇总值 */
+    public void refresh() {
+        totals.clear();
+        SnapshotTree<T> snapshot = tree.freeze();
+        Optional<T> root = snapshot.getRoot();
+        if (!root.isPresent()) return;
+        int from = snapshot.positionOf(root.get()), to = snapshot.endOf(from);
+        Object[] values = new Object[to - from];
+        // 子树超出区间的节点下一个需要合并的子节点位置，0 表示已合并所有子节点
+        int[] resumes = new int[to - from];
+        int ranges = (to - from + RANGE_SIZE - 1) / RANGE_SIZE;
+        IntStream indexes = IntStream.range(0, ranges);
+        (ranges > 1 ? indexes.parallel() : indexes).forEach(range -> aggregate(snapshot, from, values, resumes,
+                from + range * RANGE_SIZE, Math.min(to, from + (range + 1) * RANGE_SIZE)));
+        // 子节点的位置总是大于父节点，自后向前合并时子节点都已完成
+        for (int position = to - 1; position >= from; position--) {
+            int child = resumes[position - from];
+            if (child == 0) continue;
+            T node = snapshot.nodeAt(position);
+            V total = valueAt(values, position - from);
+            for (int end = snapshot.endOf(position); child < end; child = snapshot.endOf(child)) {
+                total = combine(node, total, valueAt(values, child - from));
+            }
+            values[position - from] = total;
+        }
+        for (int position = from; position < to; position++) totals.put(snapshot.nodeAt(position), valueAt(values, position - from));
+    }
+
+    /**
+     * 自后向前计算先序区间 [start, end) 内的节点，子树超出区间的节点只合并区间内的子节点，
+     * 并在 resumes 中记录下一个需要合并的子节点
+     */
+    private void aggregate(SnapshotTree<T> snapshot, int from, Object[] values, int[] resumes, int start, int end) {
+        for (int position = end - 1; position >= start; position--) {
+            T node = snapshot.nodeAt(position);
+            V total = valueOf(node);
+            int child = position + 1, childEnd = snapshot.endOf(position);
+            for (; child < childEnd && snapshot.endOf(child) <= end; child = snapshot.endOf(child)) {
+                total = combine(node, total, valueAt(values, child - from));
+            }
+            values[position - from] = total;
+            if (child < childEnd) resumes[position - from] = child;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private V valueAt(Object[] values, int index) {
+        return (V) values[index];
+    }
+
+    /** 获取节点自身的取值 */
+    private V valueOf(T node) {
+        return Objects.requireNonNull(extractor.apply(node), () -> String.format("节点[%s]的取值不能为 null", node));
+    }
+
+    /** 合并节点当前的汇总值和一个子节点的汇总值 */
+    private V combine(T node, V total, V child) {
+        return Objects.requireNonNull(combiner.apply(total, child), () -> String.format("节点[%s]的汇总值不能为 null", node));
+    }
+
+    /** 合并节点自身的取值和子节点的汇总值，子节点的汇总值必须已计算 */
+    private void aggregate(T node) {
+        V total = valueOf(node);
+        for (T child : tree.findChildren(node)) total = combine(node, total, totals.get(child));
+        totals.put(node, total);
+    }
+
+    /** 自指定节点向上，重新计算路径上所有节点的汇总值 */
+    private void reaggregate(T node) {
+        for (Optional<T> current = Optional.of(node); current.isPresent(); current = tree.findParent(current.get())) {
+            aggregate(current.get());
+        }
+    }
+
+    /**
+     * 获取节点的汇总值
+     *
+     * @param node 节点
+     * @return 以指定节点为根节点的子树的汇总值
+     * @throws NodeAbsentException 如果指定节点不存在于树中
+     */
+    public V getValue(T node) throws NodeAbsentException {
+        V total = totals.get(node);
+        if (total == null) throw new NodeAbsentException(node);
+        return total;
+    }
+
+    /** @return 所有节点的汇总值，不可修改 */
+    public Map<T, V> getValues() {
+        return Collections.unmodifiableMap(totals);
+    }
+
+    /**
+     * 节点的取值发生变化后，重新计算其自身及父辈节点的汇总值
+     *
+     * @param node 节点
+     * @throws NodeAbsentException 如果指定节点不存在于树中
+     */
+    public void updateValue(T node) throws NodeAbsentException {
+        if (!tree.contains(node)) throw new NodeAbsentException(node);
+        reaggregate(node);
+    }
+
+    /**
+     * 添加节点，并重新计算父辈节点的汇总值
+     *
+     * @param node 节点
+     * @see Tree#addNode(Object)
+     */
+    public void addNode(T node) {
+        tree.addNode(node);
+        reaggregate(node);
+    }
+
+    /**
+     * 删除节点及其子辈节点，并重新计算父辈节点的汇总值
+     *
+     * @param node 节点
+     * @see Tree#removeNode(Object)
+     */
+    public void removeNode(T node) {
+        Optional<T> parent = tree.findParent(node);
+        List<T> younger = tree.findYounger(node);
+        tree.removeNode(node);
+        totals.remove(node);
+        younger.forEach(totals::remove);
+        parent.ifPresent(this::reaggregate);
+    }
+
+    /**
+     * 移动节点，并重新计算新旧父辈节点的汇总值，被移动分支内的汇总值保持不变
+     *
+     * @param node   节点
+     * @param parent 新的父节点
+     * @see Tree#moveNode(Object, Object)
+     */
+    public void moveNode(T node, T parent) {
+        Optional<T> previous = tree.findParent(node);
+        tree.moveNode(node, parent);
+        previous.ifPresent(this::reaggregate);
+        reaggregate(parent);
+    }
+
+}
@@ -0,0 +1,166 @@
+package com.github.peacetrue.tree;
+
+import java.util.*;
+import java.util.function.ToLongFunction;
+
+/**
+ * 两颗树之间的差异，包括新增、删除和移动的节点，可以应用到其他树上实现增量同步。
+ * <p>
+ * 比较时读取节点的子树散列（{@link Tree#hash(Object)}），
+ * 两颗树中同一节点的子树散列相同时，认为子树完全相同，直接跳过，不再比较其中的节点。
+ * {@link IndexedTree}、{@link SnapshotTree}、{@link ConcurrentTree}维护了子树散列，读取子树散列为 O(1)，
+ * 比较的开销与变化的规模相关，而不是整颗树的规模；
+ * 其他树，例如：{@link GenericTree}，比较前通过一次后序遍历计算所有节点的子树散列。
+ * <p>
+ * 节点通过{@link Object#equals(Object)}对应，只比较节点之间的关系，不比较节点中其他属性的变化。
+ * 子树散列由节点的 64 位指纹组成：字符串、整数、字符、枚举和类按取值计算 64 位指纹，
+ * 其他节点使用{@link Object#hashCode()}，只有 32 位，{@code hashCode} 相同的不同节点互相替换时子树散列不变，会遗漏其中的变化，
+ * 此时需要通过{@link #of(Tree, Tree, ToLongFunction)}指定 64 位的指纹。
+ *
+ * @param <T> 节点
+ * @author xiayx
+ */
+public final class TreeDiff<T> {
+
+    private final Tree<T> oldTree, newTree;
+    private final List<T> added = new ArrayList<>(), removed = new ArrayList<>(), moved = new ArrayList<>();
+
+    private TreeDiff(Tree<T> oldTree, Tree<T> newTree) {
+        this.oldTree = oldTree;
+        this.newTree = newTree;
+    }
+
+    /**
+     * 比较两颗树
+     *
+     * @param oldTree 原树
+     * @param newTree 新树，在应用差异前不能被修改
+     * @param <T>     节点
+     * @return 从原树到新树的差异
+     */
+    public static <T> TreeDiff<T> of(Tree<T> oldTree, Tree<T> newTree) {
+        Objects.requireNonNull(oldTree);
+        Objects.requireNonNull(newTree);
+        return of(oldTree, newTree, hashes(oldTree), hashes(newTree));
+    }
+
+    /**
+     * 使用指定的节点指纹比较两颗树，不读取树中维护的子树散列，比较前通过一次后序遍历计算两颗树所有节点的子树散列
+     *
+     * @param oldTree     原树
+     * @param newTree     新树，在应用差异前不能被修改
+     * @param fingerprint 节点的 64 位指纹，相等的节点指纹必须相同，不同的节点指纹应当不同
+     * @param <T>         节点
+     * @return 从原树到新树的差异
+     */
+    public static <T> TreeDiff<T> of(Tree<T> oldTree, Tree<T> newTree, ToLongFunction<? super T> fingerprint) {
+        Map<T, Long> oldHashes = SubtreeHash.all(Objects.requireNonNull(oldTree), Objects.requireNonNull(fingerprint));
+        Map<T, Long> newHashes = SubtreeHash.all(Objects.requireNonNull(newTree), fingerprint);
+        return of(oldTree, newTree, oldHashes::get, newHashes::get);
+    }
+
+    private static <T> TreeDiff<T> of(Tree<T> oldTree, Tree<T> newTree, ToLongFunction<T> oldHash, ToLongFunction<T> newHash) {
+        TreeDiff<T> diff = new TreeDiff<>(oldTree, newTree);
+        Deque<T> stack = new ArrayDeque<>();
+        newTree.getRoot().ifPresent(stack::push);
+        while (!stack.isEmpty()) {
+            T node = stack.pop();
+            if (!oldTree.contains(node)) {
+                diff.added.add(node);
+            } else {
+                if (!oldTree.findParent(node).equals(newTree.findParent(node))) diff.moved.add(node);
+                if (oldHash.applyAsLong(node) == newHash.applyAsLong(node)) continue;
+            }
+            pushChildren(stack, newTree, node);
+        }
+
+        oldTree.getRoot().ifPresent(stack::push);
+        while (!stack.isEmpty()) {
+            T node = stack.pop();
+            if (!newTree.contains(node)) diff.removed.add(node);
+            else if (oldHash.applyAsLong(node) == newHash.applyAsLong(node)) continue;
+            pushChildren(stack, oldTree, node);
+        }
+        return diff;
+    }
+
+    /** 获取子树散列的函数，树未维护子树散列时一次计算所有节点的子树散列，避免逐个节点遍历子树 */
+    private static <T> ToLongFunction<T> hashes(Tree<T> tree) {
+        if (SubtreeHash.isMaintained(tree)) return tree::hash;
+        Map<T, Long> hashes = SubtreeHash.all(tree);
+        return hashes::get;
+    }
+
+    /** 逆序压入子节点，出栈时为先序 */
+    private static <T> void pushChildren(Deque<T> stack, Tree<T> tree, T node) {
+        List<T> children = tree.findChildren(node);
+        for (int i = children.size() - 1; i >= 0; i--) stack.push(children.get(i));
+    }
+
+    /** @return 新增的节点，按新树的先序排列 */
+    public List<T> getAdded() {
+        return Collections.unmodifiableList(added);
+    }
+
+    /** @return 删除的节点，按原树的先序排列，包括被删除节点的子辈节点 */
+    public List<T> getRemoved() {
+        return Collections.unmodifiableList(removed);
+    }
+
+    /** @return 父节点发生变化的节点，按新树的先序排列 */
+    public List<T> getMoved() {
+        return Collections.unmodifiableList(moved);
+    }
+
+    /** @return 两颗树的节点关系是否完全相同 */
+    public boolean isEmpty() {
+        return added.isEmpty() && removed.isEmpty() && moved.isEmpty();
+    }
+
+    /**
+     * 将差异应用到指定的树上，指定的树通常与原树相同，例如：原树本身。
+     * <p>
+     * 依次新增节点、移动节点、删除节点：
+     * <ul>
+     * <li>新增的节点按先序加入，父节点总是先于子节点</li>
+     * <li>移动的节点按新树的先序移动，新的父节点总是已处于最终的位置，不会形成环</li>
+     * <li>删除节点时，需要保留的子辈节点已被移走</li>
+     * </ul>
+     * 不支持移动节点的树，例如：通过{@link RelationPredicate}实时判断节点关系的{@link GenericTree}，
+     * 先删除节点，最后从新树中重新加入其子树中缺失的节点，重新加入的节点使用新树中的节点对象。
+     * <p>
+     * 根节点发生变化时无法增量同步，删除原根节点后加入新树中的所有节点。
+     *
+     * @param tree 树
+     */
+    public void apply(Tree<T> tree) {
+        Optional<T> oldRoot = oldTree.getRoot(), newRoot = newTree.getRoot();
+        if (!oldRoot.equals(newRoot)) {
+            oldRoot.filter(tree::contains).ifPresent(tree::removeNode);
+            if (newRoot.isPresent()) tree.addNodes(new ArrayList<>(newTree.getNodes()));
+            return;
+        }
+
+        added.forEach(tree::addNode);
+        List<T> displaced = new ArrayList<>();
+        for (T node : moved) {
+            if (!tree.contains(node)) {
+                displaced.add(node);
+                continue;
+            }
+            try {
+                tree.moveNode(node, newTree.findParent(node).orElseThrow(() -> new ParentAbsentException(node)));
+            } catch (UnsupportedOperationException e) {
+                tree.removeNode(node);
+                displaced.add(node);
+            }
+        }
+        for (T node : removed) {
+            if (tree.contains(node)) tree.removeNode(node);
+        }
+        for (T node : displaced) {
+            newTree.preOrder(node).filter(younger -> !tree.contains(younger)).forEach(tree::addNode);
+        }
+    }
+
+}
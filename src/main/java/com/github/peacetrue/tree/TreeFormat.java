@@ -0,0 +1,167 @@
+package com.github.peacetrue.tree;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 树的二进制格式，按先序存储节点及其父节点位置，读取时直接构造{@link SnapshotTree}，不重新定位父节点，也不校验节点。
+ * 读取时会校验头部的长度、父节点位置和节点字节的偏移，无效时抛出{@link IllegalArgumentException}。
+ * <p>
+ * 格式如下，整数均为大端序的 4 字节整数：
+ * <pre>
+ * 魔数 "PTRE" | 版本 | 节点数目 n
+ * 父节点位置 int[n]，先序排列，根节点为 -1
+ * 节点字节的偏移 int[n + 1]，相对于节点字节的起始位置
+ * 节点字节，由{@link NodeCodec}编码
+ * </pre>
+ * 文件通过{@link FileChannel#map(FileChannel.MapMode, long, long)}只读映射后读取，
+ * 多个进程读取同一个文件时共享操作系统的页缓存，单个文件不能超过 2GB。
+ *
+ * @author xiayx
+ */
+public final class TreeFormat {
+
+    /** 魔数 "PTRE" */
+    static final int MAGIC = 0x50545245;
+    static final int VERSION = 1;
+
+    private TreeFormat() {
+    }
+
+    /**
+     * 将树写入输出流，输出流不会被关闭
+     *
+     * @param tree  树
+     * @param codec 节点编码器
+     * @param out   输出流
+     * @param <T>   节点
+     * @throws IOException 如果写入失败
+     */
+    public static <T> void write(Tree<T> tree, NodeCodec<? super T> codec, OutputStream out) throws IOException {
+        SnapshotTree<T> snapshot = tree.freeze();
+        Collection<T> nodes = snapshot.getNodes();
+        int count = nodes.size();
+        int[] parents = new int[count], offsets = new int[count + 1];
+        List<byte[]> payloads = new ArrayList<>(count);
+        // 先序序列中，节点的父节点是此前最后一个深度小 1 的节点
+        int[] path = new int[snapshot.height()];
+        int position = 0;
+        for (T node : nodes) {
+            int depth = snapshot.depth(node);
+            parents[position] = depth == 0 ? -1 : path[depth - 1];
+            path[depth] = position;
+            byte[] payload = codec.encode(node);
+            payloads.add(payload);
+            offsets[position + 1] = Math.addExact(offsets[position], payload.length);
+            position++;
+        }
+
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out, 1 << 16));
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+        data.writeInt(count);
+        for (int parent : parents) data.writeInt(parent);
+        for (int offset : offsets) data.writeInt(offset);
+        for (byte[] payload : payloads) data.write(payload);
+        data.flush();
+    }
+
+    /**
+     * 将树写入文件，已存在的文件会被覆盖
+     *
+     * @param tree  树
+     * @param codec 节点编码器
+     * @param path  文件路径
+     * @param <T>   节点
+     * @throws IOException 如果写入失败
+     */
+    public static <T> void write(Tree<T> tree, NodeCodec<? super T> codec, Path path) throws IOException {
+        try (OutputStream out = Files.newOutputStream(path)) {
+            write(tree, codec, out);
+        }
+    }
+
+    /**
+     * 从缓冲区读取树，缓冲区的位置保持不变
+     *
+     * @param buffer 缓冲区
+     * @param codec  节点解码器
+     * @param <T>    节点
+     * @return 快照树
+     * @throws IllegalArgumentException 如果缓冲区不是有效的树格式或者版本不支持
+     */
+    public static <T> SnapshotTree<T> read(ByteBuffer buffer, NodeCodec<? extends T> codec) {
+        ByteBuffer source = buffer.duplicate().order(ByteOrder.BIG_ENDIAN);
+        if (source.remaining() < 12 || source.getInt() != MAGIC) throw new IllegalArgumentException("缓冲区不是有效的树格式");
+        int version = source.getInt();
+        if (version != VERSION) throw new IllegalArgumentException(String.format("不支持的树格式版本[%s]", version));
+        int count = source.getInt();
+        // 父节点位置 n 个，偏移 n + 1 个
+        if (count < 0 || source.remaining() < 8L * count + 4) {
+            throw new IllegalArgumentException(String.format("节点数目[%s]超出缓冲区的容量", count));
+        }
+        int[] parents = new int[count], offsets = new int[count + 1];
+        source.asIntBuffer().get(parents);
+        source.position(source.position() + count * 4);
+        source.asIntBuffer().get(offsets);
+        source.position(source.position() + (count + 1) * 4);
+        checkParents(parents);
+
+        int payload = source.position();
+        if (offsets[0] != 0) throw new IllegalArgumentException(String.format("节点字节的起始偏移[%s]必须为 0", offsets[0]));
+        for (int i = 0; i < count; i++) {
+            if (offsets[i + 1] < offsets[i]) {
+                throw new IllegalArgumentException(String.format("第[%s]个节点字节的偏移[%s]小于前一个偏移[%s]", i + 1, offsets[i + 1], offsets[i]));
+            }
+        }
+        if (offsets[count] > source.remaining()) {
+            throw new IllegalArgumentException(String.format("节点字节的长度[%s]超出缓冲区的容量", offsets[count]));
+        }
+        Object[] nodes = new Object[count];
+        for (int i = 0; i < count; i++) {
+            source.limit(payload + offsets[i + 1]);
+            source.position(payload + offsets[i]);
+            nodes[i] = codec.decode(source.slice());
+        }
+        return new SnapshotTree<>(nodes, parents);
+    }
+
+    /** 检查父节点位置能否组成先序排列的树：只有首个节点是根节点，其他节点的父节点是前一个节点或其父辈节点 */
+    private static void checkParents(int[] parents) {
+        // 先序序列中，节点的父节点必须是此前最后一个处于该深度的节点
+        int[] depths = new int[parents.length], path = new int[parents.length];
+        for (int i = 0; i < parents.length; i++) {
+            int parent = parents[i];
+            if (i == 0 ? parent != -1 : parent < 0 || parent >= i || path[depths[parent]] != parent) {
+                throw new IllegalArgumentException(String.format("第[%s]个节点的父节点位置[%s]无效", i, parent));
+            }
+            depths[i] = i == 0 ? 0 : depths[parent] + 1;
+            path[depths[i]] = i;
+        }
+    }
+
+    /**
+     * 通过内存映射读取文件中的树
+     *
+     * @param path  文件路径
+     * @param codec 节点解码器
+     * @param <T>   节点
+     * @return 快照树
+     * @throws IOException              如果读取失败
+     * @throws IllegalArgumentException 如果文件不是有效的树格式或者版本不支持
+     */
+    public static <T> SnapshotTree<T> read(Path path, NodeCodec<? extends T> codec) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), codec);
+        }
+    }
+
+}
@@ -0,0 +1,133 @@
+package com.github.peacetrue.tree;
+
+import java.util.Objects;
+
+/**
+ * 树的度量指标，用于记录树操作的耗时、结果大小、节点判断的调用次数以及树的形状。
+ * <p>
+ * 所有方法默认不做任何处理，实现类按需覆盖，例如：{@link CountingTreeMetrics}。
+ * 通过{@link MeteredTree}记录任意树的操作，
+ * 通过{@link #meter(RootPredicate, TreeMetrics)}等方法包装节点判断后记录其调用次数。
+ * <p>
+ * 记录方法会在操作的调用线程中同步执行，实现类需要保证线程安全且足够轻量。
+ *
+ * @author xiayx
+ */
+public interface TreeMetrics {
+
+    /** 不记录任何指标 */
+    TreeMetrics NOOP = new TreeMetrics() {
+    };
+
+    /** 树的操作 */
+    enum Operation {
+        GET_ROOT, GET_NODES, CONTAINS,
+        FIND_PARENT, FIND_PARENTS, IS_ANCESTOR_OF, FIND_CHILDREN, FIND_YOUNGER,
+        DEPTH, SIZE, HEIGHT, NODES_AT_LEVEL, IS_LEAF, HASH, QUERY,
+        ADD_NODE, ADD_NODES, REMOVE_NODE, MOVE_NODE, DETACH,
+        SUBTREE, LOCAL_TREE, FREEZE
+    }
+
+    /**
+     * 记录一次操作
+     *
+     * @param operation  操作
+     * @param nanos      耗时，单位纳秒
+     * @param resultSize 结果中的节点数目，结果不是节点集合时为 -1
+     */
+    default void recordOperation(Operation operation, long nanos, int resultSize) {
+    }
+
+    /** 记录一次根节点判断 */
+    default void recordRootPredicate() {
+    }
+
+    /** 记录一次节点关系判断 */
+    default void recordRelationPredicate() {
+    }
+
+    /**
+     * 记录树的形状
+     *
+     * @param size   节点数目
+     * @param height 高度
+     */
+    default void recordShape(int size, int height) {
+    }
+
+    /**
+     * 包装根节点判断，记录其调用次数
+     *
+     * @param predicate 根节点判断
+     * @param metrics   度量指标
+     * @param <T>       节点
+     * @return 记录调用次数的根节点判断
+     */
+    static <T> RootPredicate<T> meter(RootPredicate<T> predicate, TreeMetrics metrics) {
+        Objects.requireNonNull(predicate);
+        Objects.requireNonNull(metrics);
+        return node -> {
+            metrics.recordRootPredicate();
+            return predicate.isRoot(node);
+        };
+    }
+
+    /**
+     * 包装节点关系判断，记录其调用次数
+     *
+     * @param predicate 节点关系判断
+     * @param metrics   度量指标
+     * @param <T>       节点
+     * @return 记录调用次数的节点关系判断
+     */
+    static <T> RelationPredicate<T> meter(RelationPredicate<T> predicate, TreeMetrics metrics) {
+        Objects.requireNonNull(predicate);
+        Objects.requireNonNull(metrics);
+        return (parent, child) -> {
+            metrics.recordRelationPredicate();
+            return predicate.isParentOf(parent, child);
+        };
+    }
+
+    /**
+     * 包装基于主键的节点关系判断，保留主键索引的能力。
+     * <p>
+     * 树的实现通过父主键定位父节点，因此每次获取父主键或者判断父子关系记录为一次节点关系判断，
+     * 每次判断根节点记录为一次根节点判断。
+     *
+     * @param predicate 基于主键的节点关系判断
+     * @param metrics   度量指标
+     * @param <T>       节点
+     * @param <K>       主键
+     * @return 记录调用次数的节点关系判断
+     */
+    static <T, K> KeyPredicate<T, K> meter(KeyPredicate<T, K> predicate, TreeMetrics metrics) {
+        Objects.requireNonNull(predicate);
+        Objects.requireNonNull(metrics);
+        return new KeyPredicate<T, K>() {
+            @Override
+            public K getKey(T node) {
+                return predicate.getKey(node);
+            }
+
+            @Override
+            public K getParentKey(T node) {
+                metrics.recordRelationPredicate();
+                return predicate.getParentKey(node);
+            }
+
+            @Override
+            public boolean isRoot(T node) {
+                metrics.recordRootPredicate();
+                return predicate.isRoot(node);
+            }
+
+            @Override
+            public boolean isParentOf(T parent, T child) {
+                metrics.recordRelationPredicate();
+                return predicate.isParentOf(parent, child);
+            }
+        };
+    }
+
+}
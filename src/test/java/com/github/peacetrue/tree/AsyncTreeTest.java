@@ -0,0 +1,221 @@
+package com.github.peacetrue.tree;
+
+import com.github.peacetrue.util.AssertUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * 异步树测试，以类的树形结构为示例
+ *
+ * @author xiayx
+ */
+public class AsyncTreeTest {
+
+    private List<Class> classes = Arrays.asList(
+            Object.class,
+            Throwable.class,
+            Error.class,
+            LinkageError.class,
+            ThreadDeath.class,
+            AssertionError.class,
+            VirtualMachineError.class,
+            Exception.class,
+            CloneNotSupportedException.class,
+            ReflectiveOperationException.class,
+            RuntimeException.class,
+            IndexOutOfBoundsException.class,
+            ArithmeticException.class,
+            ClassCastException.class,
+            NullPointerException.class,
+            IllegalArgumentException.class,
+            InterruptedException.class
+    );
+
+    private ConcurrentTree<Class> tree = new ConcurrentTree<>(KeyPredicate.of(node -> node, Class::getSuperclass), classes);
+
+    @Test
+    public void future() throws Exception {
+        AsyncTree<Class> asyncTree = new AsyncTree<>(tree);
+        Assert.assertEquals(Object.class, asyncTree.getRoot().get().get());
+        Assert.assertEquals(tree.findParents(RuntimeException.class), asyncTree.findParents(RuntimeException.class).get());
+        Assert.assertEquals(tree.findChildren(Exception.class), asyncTree.findChildren(Exception.class).get());
+        Assert.assertEquals(tree.findYounger(Throwable.class), asyncTree.findYounger(Throwable.class).get());
+        Assert.assertEquals(Collections.emptyList(), asyncTree.findYounger(Long.class).get());
+        Assert.assertEquals(tree.query(Throwable.class, node -> node.getSimpleName().endsWith("Error"), 1, 2),
+                asyncTree.query(Throwable.class, node -> node.getSimpleName().endsWith("Error"), 1, 2).get());
+        Assert.assertEquals(6, (int) asyncTree.supply(tree -> tree.size(RuntimeException.class)).get());
+
+        Throwable throwable = AssertUtils.assertException(() -> asyncTree.query(Long.class, node -> true, 0, 1).get());
+        Assert.assertTrue(throwable.getCause() instanceof NodeAbsentException);
+        // 分页参数错误同样通过结果报告
+        throwable = AssertUtils.assertException(() -> asyncTree.query(Object.class, node -> true, -1, 1).get());
+        Assert.assertTrue(throwable.getCause() instanceof IllegalArgumentException);
+    }
+
+    @Test
+    public void cancel() throws Exception {
+        // 任务排队，取消后不再执行
+        Deque<Runnable> tasks = new ArrayDeque<>();
+        AsyncTree<Class> queued = new AsyncTree<>(tree, tasks::add);
+        AtomicInteger calls = new AtomicInteger();
+        CompletableFuture<Integer> future = queued.supply(tree -> calls.incrementAndGet());
+        future.cancel(true);
+        tasks.forEach(Runnable::run);
+        tasks.clear();
+        Assert.assertEquals(0, calls.get());
+
+        // 遍历中取消，尽快停止遍历
+        List<Integer> nodes = IntStream.range(0, 10_000).boxed().collect(Collectors.toList());
+        GenericTree<Integer> chain = new GenericTree<>(KeyPredicate.of(node -> node, node -> node == 0 ? null : node - 1), nodes);
+        AsyncTree<Integer> asyncTree = new AsyncTree<>(chain, tasks::add);
+        calls.set(0);
+        AtomicReference<CompletableFuture<List<Integer>>> reference = new AtomicReference<>();
+        reference.set(asyncTree.query(0, node -> {
+            if (calls.incrementAndGet() == 10) reference.get().cancel(true);
+            return true;
+        }, 0, Integer.MAX_VALUE));
+        tasks.forEach(Runnable::run);
+        Assert.assertTrue(reference.get().isCancelled());
+        Assert.assertEquals(10, calls.get());
+
+        // 没有节点满足条件时，取消后同样停止遍历
+        tasks.clear();
+        calls.set(0);
+        reference.set(asyncTree.query(0, node -> {
+            if (calls.incrementAndGet() == 10) reference.get().cancel(true);
+            return false;
+        }, 0, Integer.MAX_VALUE));
+        tasks.forEach(Runnable::run);
+        Assert.assertTrue(reference.get().isCancelled());
+        Assert.assertEquals(10, calls.get());
+    }
+
+    @Test
+    public void publish() throws Exception {
+        AsyncTree<Class> asyncTree = new AsyncTree<>(tree, Runnable::run);
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        asyncTree.preOrder(Exception.class).subscribe(subscriber);
+        Assert.assertTrue(subscriber.items.isEmpty());
+
+        subscriber.subscription.request(3);
+        Assert.assertEquals(tree.preOrder(Exception.class).limit(3).collect(Collectors.toList()), subscriber.items);
+        Assert.assertFalse(subscriber.completed);
+        subscriber.subscription.request(100);
+        Assert.assertEquals(tree.preOrder(Exception.class).collect(Collectors.toList()), subscriber.items);
+        Assert.assertTrue(subscriber.completed);
+
+        // 取消后不再推送
+        subscriber = new RecordingSubscriber();
+        asyncTree.breadthFirst(Object.class).subscribe(subscriber);
+        subscriber.subscription.request(2);
+        subscriber.subscription.cancel();
+        subscriber.subscription.request(2);
+        Assert.assertEquals(Arrays.asList(Object.class, Throwable.class), subscriber.items);
+        Assert.assertFalse(subscriber.completed);
+
+        // 请求的数目必须大于 0
+        subscriber = new RecordingSubscriber();
+        asyncTree.preOrder(Object.class).subscribe(subscriber);
+        subscriber.subscription.request(0);
+        Assert.assertTrue(subscriber.error instanceof IllegalArgumentException);
+        subscriber.subscription.request(1);
+        Assert.assertTrue(subscriber.items.isEmpty());
+    }
+
+    /** 推送完成、取消或出错时关闭节点流 */
+    @Test
+    public void publishClose() throws Exception {
+        AsyncTree<Class> asyncTree = new AsyncTree<>(tree, Runnable::run);
+        AtomicInteger closed = new AtomicInteger();
+
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        asyncTree.publish(() -> tree.preOrder(RuntimeException.class).onClose(closed::incrementAndGet)).subscribe(subscriber);
+        subscriber.subscription.request(100);
+        Assert.assertTrue(subscriber.completed);
+        Assert.assertEquals(1, closed.get());
+
+        subscriber = new RecordingSubscriber();
+        asyncTree.publish(() -> tree.preOrder(RuntimeException.class).onClose(closed::incrementAndGet)).subscribe(subscriber);
+        subscriber.subscription.request(1);
+        Assert.assertEquals(1, closed.get());
+        subscriber.subscription.cancel();
+        Assert.assertEquals(2, closed.get());
+
+        subscriber = new RecordingSubscriber();
+        asyncTree.publish(() -> tree.preOrder(RuntimeException.class).onClose(closed::incrementAndGet)
+                .peek(node -> {
+                    throw new IllegalStateException();
+                })).subscribe(subscriber);
+        subscriber.subscription.request(1);
+        Assert.assertTrue(subscriber.error instanceof IllegalStateException);
+        Assert.assertEquals(3, closed.get());
+    }
+
+    /** 在接收节点时继续请求，节点按顺序推送且不会重入 */
+    @Test
+    public void publishReentrant() throws Exception {
+        AsyncTree<Class> asyncTree = new AsyncTree<>(tree);
+        CompletableFuture<List<Class>> result = new CompletableFuture<>();
+        asyncTree.preOrder(Object.class).subscribe(new AsyncTree.Subscriber<Class>() {
+            private final List<Class> items = new ArrayList<>();
+            private AsyncTree.Subscription subscription;
+
+            @Override
+            public void onSubscribe(AsyncTree.Subscription subscription) {
+                (this.subscription = subscription).request(1);
+            }
+
+            @Override
+            public void onNext(Class item) {
+                items.add(item);
+                subscription.request(1);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                result.completeExceptionally(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+                result.complete(items);
+            }
+        });
+        Assert.assertEquals(tree.stream().collect(Collectors.toList()), result.get());
+    }
+
+    private static class RecordingSubscriber implements AsyncTree.Subscriber<Class> {
+        private final List<Class> items = new ArrayList<>();
+        private AsyncTree.Subscription subscription;
+        private Throwable error;
+        private boolean completed;
+
+        @Override
+        public void onSubscribe(AsyncTree.Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(Class item) {
+            items.add(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            this.error = throwable;
+        }
+
+        @Override
+        public void onComplete() {
+            this.completed = true;
+        }
+    }
+
+}
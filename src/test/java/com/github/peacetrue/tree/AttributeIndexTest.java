@@ -0,0 +1,80 @@
+package com.github.peacetrue.tree;
+
+import com.github.peacetrue.util.AssertUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * 节点属性索引测试，以类的树形结构为示例
+ *
+ * @author xiayx
+ */
+public class AttributeIndexTest {
+
+    private List<Class> classes = Arrays.asList(
+            Object.class,
+            Throwable.class,
+            Error.class,
+            LinkageError.class,
+            ThreadDeath.class,
+            AssertionError.class,
+            VirtualMachineError.class,
+            Exception.class,
+            CloneNotSupportedException.class,
+            ReflectiveOperationException.class,
+            RuntimeException.class,
+            IndexOutOfBoundsException.class,
+            ArithmeticException.class,
+            ClassCastException.class,
+            NullPointerException.class,
+            IllegalArgumentException.class,
+            InterruptedException.class
+    );
+
+    private IndexedTree<Class> tree = new IndexedTree<>(KeyPredicate.of(node -> node, Class::getSuperclass), classes);
+
+    /** 按是否错误类建立索引 */
+    private AttributeIndex<Class, Boolean> index = new AttributeIndex<>(tree, node -> node.getSimpleName().endsWith("Error"));
+
+    @Test
+    public void query() throws Exception {
+        Assert.assertEquals(new HashSet<>(Arrays.asList(true, false)), index.getValues());
+        Assert.assertEquals(Arrays.asList(Error.class, LinkageError.class, AssertionError.class, VirtualMachineError.class),
+                index.query(Object.class, true, 0, 10));
+        Assert.assertEquals(Arrays.asList(LinkageError.class, AssertionError.class), index.query(Error.class, true, 1, 2));
+        Assert.assertEquals(4, index.count(Error.class, true));
+        Assert.assertEquals(0, index.count(Exception.class, true));
+        Assert.assertEquals(0, index.count(Exception.class, null));
+        Assert.assertEquals(tree.query(Exception.class, node -> !node.getSimpleName().endsWith("Error"), 2, 3),
+                index.query(Exception.class, false, 2, 3));
+        Assert.assertEquals(Arrays.asList(ArithmeticException.class, ClassCastException.class),
+                index.query(RuntimeException.class, false, node -> node.getSimpleName().startsWith("C") || node.getSimpleName().startsWith("A"), 0, 10));
+        Assert.assertTrue(index.query(ThreadDeath.class, false, 1, 10).isEmpty());
+        AssertUtils.assertException(() -> index.query(Long.class, false, 0, 10));
+        AssertUtils.assertException(() -> index.query(Object.class, false, 0, -1));
+
+        // 索引基于构造时的快照
+        tree.addNode(UnsupportedOperationException.class);
+        Assert.assertEquals(6, index.count(RuntimeException.class, false));
+    }
+
+    @Test
+    public void random() throws Exception {
+        Random random = new Random(0);
+        KeyPredicate<Integer, Integer> keyPredicate = KeyPredicate.of(node -> node, node -> node == 0 ? null : random.nextInt(node));
+        List<Integer> nodes = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) nodes.add(i);
+        IndexedTree<Integer> tree = new IndexedTree<>(keyPredicate, nodes);
+        AttributeIndex<Integer, Integer> index = new AttributeIndex<>(tree, node -> node % 7);
+        for (int i = 0; i < 100; i++) {
+            int scope = random.nextInt(20_000), value = random.nextInt(7), offset = random.nextInt(5), limit = random.nextInt(20);
+            List<Integer> expected = tree.preOrder(scope).filter(node -> node % 7 == value).collect(Collectors.toList());
+            Assert.assertEquals(expected.size(), index.count(scope, value));
+            Assert.assertEquals(tree.query(scope, node -> node % 7 == value, offset, limit), index.query(scope, value, offset, limit));
+        }
+    }
+
+}
@@ -0,0 +1,110 @@
+package com.github.peacetrue.tree;
+
+import com.github.peacetrue.util.AssertUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.*;
+
+/**
+ * 缓存树测试，以类的树形结构为示例
+ *
+ * @author xiayx
+ */
+public class CachingTreeTest {
+
+    private List<Class> classes = Arrays.asList(
+            Object.class,
+            Throwable.class,
+            Error.class,
+            LinkageError.class,
+            ThreadDeath.class,
+            AssertionError.class,
+            VirtualMachineError.class,
+            Exception.class,
+            CloneNotSupportedException.class,
+            ReflectiveOperationException.class,
+            RuntimeException.class,
+            IndexOutOfBoundsException.class,
+            ArithmeticException.class,
+            ClassCastException.class,
+            NullPointerException.class,
+            IllegalArgumentException.class,
+            InterruptedException.class
+    );
+
+    private IndexedTree<Class> source = new IndexedTree<>(KeyPredicate.of(node -> node, Class::getSuperclass), classes);
+
+    private CachingTree<Class> tree = new CachingTree<>(source, 100);
+
+    @Test
+    public void cache() throws Exception {
+        classes.forEach(aClass -> Assert.assertEquals(GenericTreeTest.getSuperClasses(aClass), tree.findParents(aClass)));
+        Assert.assertEquals(classes.size(), tree.getMissCount());
+        classes.forEach(aClass -> Assert.assertEquals(GenericTreeTest.getSuperClasses(aClass), tree.findParents(aClass)));
+        classes.forEach(aClass -> Assert.assertEquals(aClass.getSuperclass(), tree.findParent(aClass).orElse(null)));
+        Assert.assertEquals(classes.size() * 2, tree.getHitCount());
+        Assert.assertEquals(source.findYounger(Throwable.class), tree.findYounger(Throwable.class));
+        Assert.assertSame(tree.findYounger(Throwable.class), tree.findYounger(Throwable.class));
+        AssertUtils.assertException(() -> tree.findChildren(Throwable.class).add(Long.class));
+    }
+
+    @Test
+    public void evict() throws Exception {
+        CachingTree<Class> tree = new CachingTree<>(source, 2);
+        tree.findChildren(Object.class);
+        tree.findChildren(Throwable.class);
+        tree.findChildren(Object.class);
+        tree.findChildren(Error.class);
+        tree.findChildren(Object.class);
+        Assert.assertEquals(2, tree.getHitCount());
+        tree.findChildren(Throwable.class);
+        Assert.assertEquals(4, tree.getMissCount());
+    }
+
+    /** 命中和未命中对称计数，修改节点不计入缓存统计 */
+    @Test
+    public void count() throws Exception {
+        tree.findParent(RuntimeException.class);
+        Assert.assertEquals(1, tree.getMissCount());
+        tree.findParents(RuntimeException.class);
+        tree.findParent(RuntimeException.class);
+        Assert.assertEquals(2, tree.getMissCount());
+        Assert.assertEquals(1, tree.getHitCount());
+
+        tree.addNode(UnsupportedOperationException.class);
+        tree.moveNode(UnsupportedOperationException.class, Exception.class);
+        tree.removeNode(UnsupportedOperationException.class);
+        tree.detach(InterruptedException.class);
+        Assert.assertEquals(2, tree.getMissCount());
+        Assert.assertEquals(1, tree.getHitCount());
+        tree.findParents(UnsupportedOperationException.class);
+        Assert.assertEquals(3, tree.getMissCount());
+    }
+
+    @Test
+    public void invalidate() throws Exception {
+        Assert.assertEquals(classes.subList(8, classes.size()), tree.findYounger(Exception.class));
+        Assert.assertEquals(5, tree.findChildren(RuntimeException.class).size());
+        List<Class> younger = tree.findYounger(Error.class);
+        tree.findParents(NullPointerException.class);
+
+        tree.addNode(UnsupportedOperationException.class);
+        Assert.assertEquals(6, tree.findChildren(RuntimeException.class).size());
+        Assert.assertTrue(tree.findYounger(Exception.class).contains(UnsupportedOperationException.class));
+        Assert.assertTrue(tree.findYounger(Object.class).contains(UnsupportedOperationException.class));
+        Assert.assertSame(younger, tree.findYounger(Error.class));
+
+        tree.moveNode(RuntimeException.class, Error.class);
+        Assert.assertEquals(Arrays.asList(Object.class, Throwable.class, Error.class, RuntimeException.class),
+                tree.findParents(NullPointerException.class));
+        Assert.assertFalse(tree.findYounger(Exception.class).contains(NullPointerException.class));
+        Assert.assertTrue(tree.findYounger(Error.class).contains(NullPointerException.class));
+
+        tree.removeNode(RuntimeException.class);
+        Assert.assertFalse(tree.findYounger(Error.class).contains(NullPointerException.class));
+        Assert.assertEquals(Collections.emptyList(), tree.findParents(NullPointerException.class));
+        AssertUtils.assertException(() -> tree.removeNode(NullPointerException.class));
+    }
+
+}
@@ -0,0 +1,125 @@
+package com.github.peacetrue.tree;
+
+import com.github.peacetrue.util.AssertUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 并发树测试，以类的树形结构为示例
+ *
+ * @author xiayx
+ */
+public class ConcurrentTreeTest {
+
+    private List<Class> classes = Arrays.asList(
+            Object.class,
+            Throwable.class,
+            Error.class,
+            LinkageError.class,
+            ThreadDeath.class,
+            AssertionError.class,
+            VirtualMachineError.class,
+            Exception.class,
+            CloneNotSupportedException.class,
+            ReflectiveOperationException.class,
+            RuntimeException.class,
+            IndexOutOfBoundsException.class,
+            ArithmeticException.class,
+            ClassCastException.class,
+            NullPointerException.class,
+            IllegalArgumentException.class,
+            InterruptedException.class
+    );
+
+    private ConcurrentTree<Class> tree = new ConcurrentTree<>(KeyPredicate.of(node -> node, Class::getSuperclass), classes);
+
+    @Test
+    public void read() throws Exception {
+        Assert.assertEquals(Object.class, tree.getRoot().orElse(null));
+        Assert.assertEquals(classes, new ArrayList<>(tree.getNodes()));
+        classes.forEach(aClass -> Assert.assertEquals(aClass.getSuperclass(), tree.findParent(aClass).orElse(null)));
+        classes.forEach(aClass -> Assert.assertEquals(GenericTreeTest.getSuperClasses(aClass), tree.findParents(aClass)));
+        Assert.assertEquals(classes.subList(8, classes.size()), tree.findYounger(Exception.class));
+        Assert.assertTrue(tree.isAncestorOf(Throwable.class, NullPointerException.class));
+    }
+
+    @Test
+    public void write() throws Exception {
+        SnapshotTree<Class> version = tree.freeze();
+        tree.addNode(Number.class);
+        tree.addNodes(Arrays.asList(Long.class, Integer.class));
+        tree.moveNode(InterruptedException.class, RuntimeException.class);
+        tree.removeNode(Error.class);
+        Assert.assertEquals(Arrays.asList(Number.class, Throwable.class, Exception.class, RuntimeException.class),
+                Arrays.asList(tree.findParent(Long.class).orElse(null), tree.findParent(Exception.class).orElse(null),
+                        tree.findParent(RuntimeException.class).orElse(null), tree.findParent(InterruptedException.class).orElse(null)));
+        Assert.assertFalse(tree.contains(LinkageError.class));
+        Tree<Class> branch = tree.detach(Number.class);
+        Assert.assertEquals(Arrays.asList(Number.class, Long.class, Integer.class), new ArrayList<>(branch.getNodes()));
+        Assert.assertFalse(tree.contains(Long.class));
+        // 已获取的版本不受影响
+        Assert.assertEquals(classes, new ArrayList<>(version.getNodes()));
+    }
+
+    @Test
+    public void update() throws Exception {
+        tree.update(tree -> {
+            tree.addNode(Number.class);
+            tree.addNode(Integer.class);
+        });
+        Assert.assertEquals(Number.class, tree.findParent(Integer.class).orElse(null));
+
+        // 操作失败时丢弃本次修改
+        SnapshotTree<Class> version = tree.freeze();
+        AssertUtils.assertException(() -> tree.update(tree -> {
+            tree.removeNode(Number.class);
+            tree.addNode(Long.class);
+        }));
+        Assert.assertSame(version, tree.freeze());
+        Assert.assertTrue(tree.contains(Integer.class));
+        tree.addNode(Long.class);
+        Assert.assertEquals(Arrays.asList(Integer.class, Long.class), tree.findChildren(Number.class));
+
+        // 没有改动树时不发布新版本
+        version = tree.freeze();
+        tree.update(tree -> tree.findChildren(Number.class));
+        Assert.assertSame(version, tree.freeze());
+        AssertUtils.assertException(() -> tree.addNode(Number.class));
+        AssertUtils.assertException(() -> tree.moveNode(Number.class, Long.class));
+        Assert.assertSame(version, tree.freeze());
+        tree.addNode(Short.class);
+        Assert.assertEquals(Arrays.asList(Integer.class, Long.class, Short.class), tree.findChildren(Number.class));
+    }
+
+    @Test
+    public void concurrentReadWrite() throws Exception {
+        // 写线程成对添加和删除节点，读线程不会看到只有一个节点的中间状态
+        AtomicBoolean running = new AtomicBoolean(true);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<Integer>> readers = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            readers.add(executor.submit(() -> {
+                int reads = 0;
+                while (running.get()) {
+                    SnapshotTree<Class> version = tree.freeze();
+                    Assert.assertEquals(version.contains(Number.class), version.contains(Integer.class));
+                    Assert.assertEquals(version.getNodes().size(), version.preOrder(Object.class).count());
+                    reads++;
+                }
+                return reads;
+            }));
+        }
+        for (int i = 0; i < 500; i++) {
+            tree.update(tree -> tree.addNodes(Arrays.asList(Integer.class, Number.class)));
+            tree.removeNode(Number.class);
+        }
+        running.set(false);
+        for (Future<Integer> reader : readers) Assert.assertTrue(reader.get() > 0);
+        executor.shutdown();
+    }
+
+}
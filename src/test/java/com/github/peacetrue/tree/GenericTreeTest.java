@@ -5,6 +5,8 @@ import org.junit.Assert;
 import org.junit.Test;
 
 import java.util.*;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
 
 /**
  * 泛化树测试，以类的树形结构为示例
@@ -52,6 +54,60 @@ public class GenericTreeTest {
         Assert.assertTrue(throwable instanceof ParentAbsentException);
     }
 
+    @Test
+    public void keyPredicate() throws Exception {
+        KeyPredicate<Class, Class> keyPredicate = KeyPredicate.of(node -> node, Class::getSuperclass);
+        GenericTree<Class> tree = new GenericTree<>(keyPredicate, classes);
+        Assert.assertEquals(Object.class, tree.getRoot().orElse(null));
+        classes.forEach(aClass -> Assert.assertEquals(aClass.getSuperclass(), tree.findParent(aClass).orElse(null)));
+        Assert.assertEquals(this.tree.findYounger(Object.class), tree.findYounger(Object.class));
+        Throwable throwable = AssertUtils.assertException(() -> new GenericTree<>(keyPredicate, Arrays.asList(Object.class, Exception.class)));
+        Assert.assertTrue(throwable instanceof ParentAbsentException);
+    }
+
+    /** 通过主键关联的空树，以及删除根节点后的树 */
+    @Test
+    public void emptyKeyTree() throws Exception {
+        KeyPredicate<Class, Class> keyPredicate = KeyPredicate.of(node -> node, Class::getSuperclass);
+        List<GenericTree<Class>> trees = Arrays.asList(
+                new GenericTree<>(keyPredicate, keyPredicate),
+                new GenericTree<>(keyPredicate, classes)
+        );
+        trees.get(1).removeNode(Object.class);
+        for (GenericTree<Class> tree : trees) {
+            Assert.assertEquals(0, tree.height());
+            Assert.assertTrue(tree.nodesAtLevel(0).isEmpty());
+            Assert.assertFalse(tree.isAncestorOf(Object.class, Exception.class));
+            Assert.assertFalse(tree.findSameParent(Error.class, Exception.class).isPresent());
+            Assert.assertTrue(tree.freeze().getNodes().isEmpty());
+            AssertUtils.assertException(() -> tree.depth(Object.class));
+            AssertUtils.assertException(() -> tree.subtree(Object.class));
+            tree.addNode(Object.class);
+            Assert.assertEquals(1, tree.height());
+        }
+    }
+
+    /** 主键重复或者节点关系成环 */
+    @Test
+    public void duplicateKey() throws Exception {
+        KeyPredicate<Class, String> byName = KeyPredicate.of(Class::getSimpleName,
+                node -> node.getSuperclass() == null ? null : node.getSuperclass().getSimpleName());
+        Throwable throwable = AssertUtils.assertException(() -> new GenericTree<>(byName, Arrays.asList(Object.class, java.util.Date.class, java.sql.Date.class)));
+        Assert.assertTrue(throwable instanceof NodeExistException);
+        GenericTree<Class> tree = new GenericTree<>(byName, Arrays.asList(Object.class, java.util.Date.class));
+        throwable = AssertUtils.assertException(() -> tree.addNode(java.sql.Date.class));
+        Assert.assertTrue(throwable instanceof NodeExistException);
+        throwable = AssertUtils.assertException(() -> tree.addNodes(Collections.singletonList(java.sql.Date.class)));
+        Assert.assertTrue(throwable instanceof InvalidTreeException);
+        Assert.assertEquals(2, tree.getNodes().size());
+
+        Map<String, String> parents = new HashMap<>();
+        parents.put("b", "c");
+        parents.put("c", "b");
+        throwable = AssertUtils.assertException(() -> new GenericTree<>(KeyPredicate.of(node -> node, parents::get), Arrays.asList("a", "b", "c")));
+        Assert.assertTrue(throwable instanceof ParentAbsentException);
+    }
+
     @Test
     public void getRoot() throws Exception {
         Assert.assertTrue(tree.getRoot().isPresent());
@@ -97,6 +153,38 @@ public class GenericTreeTest {
         Optional<Class> parent = tree.findSameParent(Arrays.asList(NullPointerException.class, CloneNotSupportedException.class));
         Assert.assertTrue(parent.isPresent());
         Assert.assertEquals(parent.get(), Exception.class);
+        Assert.assertEquals(Throwable.class, tree.findSameParent(Error.class, NullPointerException.class).orElse(null));
+        Assert.assertEquals(Throwable.class, tree.findSameParent(Exception.class, NullPointerException.class).orElse(null));
+        Assert.assertEquals(RuntimeException.class, tree.findSameParent(Collections.singleton(NullPointerException.class)).orElse(null));
+        Assert.assertFalse(tree.findSameParent(Object.class, Error.class).isPresent());
+        Assert.assertFalse(tree.findSameParent(Collections.emptyList()).isPresent());
+        Assert.assertFalse(tree.findSameParent(Long.class, Error.class).isPresent());
+
+        // 未缓存快照时比较父辈节点路径，与通过快照查找的结果相同
+        List<Class> nodes = Arrays.asList(IndexOutOfBoundsException.class, ClassCastException.class, InterruptedException.class);
+        List<Class> sameParents = tree.findSameParents(nodes);
+        Assert.assertEquals(Arrays.asList(Object.class, Throwable.class, Exception.class), sameParents);
+        Assert.assertEquals(sameParents, tree.freeze().findSameParents(nodes));
+        Assert.assertEquals(sameParents, tree.findSameParents(nodes));
+        tree.addNode(UnsupportedOperationException.class);
+        Assert.assertEquals(RuntimeException.class, tree.findSameParent(UnsupportedOperationException.class, ClassCastException.class).orElse(null));
+
+        // 节点变化后重新构造索引
+        GenericTree<Class> tree = new GenericTree<>(KeyPredicate.of(node -> node, Class::getSuperclass), classes);
+        Assert.assertEquals(Exception.class, tree.findSameParent(RuntimeException.class, InterruptedException.class).orElse(null));
+        tree.removeNode(RuntimeException.class);
+        tree.addNode(RuntimeException.class);
+        tree.addNode(UnsupportedOperationException.class);
+        Assert.assertEquals(Exception.class, tree.findSameParent(UnsupportedOperationException.class, InterruptedException.class).orElse(null));
+    }
+
+    @Test
+    public void isAncestorOf() throws Exception {
+        Assert.assertTrue(tree.isAncestorOf(Throwable.class, RuntimeException.class));
+        Assert.assertTrue(tree.isDescendantOf(RuntimeException.class, Object.class));
+        Assert.assertFalse(tree.isAncestorOf(Error.class, RuntimeException.class));
+        Assert.assertFalse(tree.isAncestorOf(RuntimeException.class, RuntimeException.class));
+        Assert.assertFalse(tree.isAncestorOf(Object.class, Long.class));
     }
 
     @Test
@@ -128,6 +216,54 @@ public class GenericTreeTest {
 
     }
 
+    @Test
+    public void preOrder() throws Exception {
+        Assert.assertEquals(classes, tree.stream().collect(Collectors.toList()));
+        Assert.assertEquals(classes.subList(7, classes.size()), tree.preOrder(Exception.class).collect(Collectors.toList()));
+        Assert.assertEquals(classes, tree.preOrder(Object.class).parallel().collect(Collectors.toList()));
+        Assert.assertEquals(Arrays.asList(Exception.class, CloneNotSupportedException.class, ReflectiveOperationException.class,
+                RuntimeException.class, InterruptedException.class),
+                tree.preOrder(Exception.class, 1).collect(Collectors.toList()));
+        Assert.assertEquals(Collections.singletonList(Long.class), tree.preOrder(Long.class).collect(Collectors.toList()));
+        Assert.assertEquals(RuntimeException.class,
+                tree.preOrder(Object.class).filter(RuntimeException.class::isAssignableFrom).findFirst().orElse(null));
+        AssertUtils.assertException(() -> tree.preOrder(Object.class, -1));
+    }
+
+    @Test
+    public void postOrder() throws Exception {
+        List<Class> postOrder = tree.postOrder(Object.class).collect(Collectors.toList());
+        Assert.assertEquals(classes.size(), postOrder.size());
+        classes.forEach(node -> getSuperClasses(node).forEach(parent ->
+                Assert.assertTrue(postOrder.indexOf(node) < postOrder.indexOf(parent))));
+        Assert.assertEquals(Arrays.asList(IndexOutOfBoundsException.class, ArithmeticException.class, ClassCastException.class,
+                NullPointerException.class, IllegalArgumentException.class, RuntimeException.class),
+                tree.postOrder(RuntimeException.class).collect(Collectors.toList()));
+        Assert.assertEquals(postOrder, tree.postOrder(Object.class).parallel().collect(Collectors.toList()));
+    }
+
+    @Test
+    public void breadthFirst() throws Exception {
+        Assert.assertEquals(Arrays.asList(
+                Throwable.class,
+                Error.class,
+                Exception.class,
+                LinkageError.class,
+                ThreadDeath.class,
+                AssertionError.class,
+                VirtualMachineError.class,
+                CloneNotSupportedException.class,
+                ReflectiveOperationException.class,
+                RuntimeException.class,
+                InterruptedException.class,
+                IndexOutOfBoundsException.class,
+                ArithmeticException.class,
+                ClassCastException.class,
+                NullPointerException.class,
+                IllegalArgumentException.class),
+                tree.breadthFirst(Throwable.class).collect(Collectors.toList()));
+    }
+
     @Test
     public void getAllNodes() throws Exception {
         Assert.assertEquals(classes, new ArrayList<>(tree.getNodes()));
@@ -148,6 +284,28 @@ public class GenericTreeTest {
         System.out.println(tree);
     }
 
+    @Test
+    public void addNodes() throws Exception {
+        List<Class> shuffled = new ArrayList<>(classes);
+        Collections.shuffle(shuffled, new Random(0));
+        GenericTree<Class> tree = new GenericTree<>(
+                node -> node.equals(Object.class),
+                (parent, child) -> parent.equals(child.getSuperclass())
+        );
+        tree.addNodes(shuffled);
+        classes.forEach(aClass -> Assert.assertEquals(aClass.getSuperclass(), tree.findParent(aClass).orElse(null)));
+        // 同一层级的节点保持提交顺序
+        Assert.assertEquals(shuffled.indexOf(Error.class) < shuffled.indexOf(Exception.class) ? Arrays.asList(Error.class, Exception.class)
+                : Arrays.asList(Exception.class, Error.class), tree.findChildren(Throwable.class));
+
+        InvalidTreeException exception = (InvalidTreeException) AssertUtils.assertException(() -> tree.addNodes(
+                Arrays.asList(Integer.class, Number.class, ArrayList.class)));
+        Assert.assertEquals(Collections.singletonList(ArrayList.class), exception.getOrphans());
+        Assert.assertFalse(tree.contains(Number.class));
+        tree.addNodes(Arrays.asList(Integer.class, Number.class));
+        Assert.assertEquals(Number.class, tree.findParent(Integer.class).orElse(null));
+    }
+
     @Test
     public void removeNode() throws Exception {
         GenericTree<Class> tree = new GenericTree<>(
@@ -165,6 +323,29 @@ public class GenericTreeTest {
         });
     }
 
+    @Test
+    public void moveNode() throws Exception {
+        Throwable throwable = AssertUtils.assertException(() -> tree.moveNode(RuntimeException.class, Error.class));
+        Assert.assertTrue(throwable instanceof UnsupportedOperationException);
+    }
+
+    @Test
+    public void detach() throws Exception {
+        AssertUtils.assertException(() -> tree.detach(Long.class));
+        GenericTree<Class> branch = tree.detach(RuntimeException.class);
+        Assert.assertEquals(classes.subList(10, 16), new ArrayList<>(branch.getNodes()));
+        Assert.assertEquals(RuntimeException.class, branch.getRoot().orElse(null));
+        Assert.assertFalse(tree.contains(NullPointerException.class));
+        Assert.assertEquals(classes.size() - 6, tree.getNodes().size());
+        branch.addNode(UnsupportedOperationException.class);
+        Assert.assertEquals(RuntimeException.class, branch.findParent(UnsupportedOperationException.class).orElse(null));
+        // 删除分支的根节点后，可以添加原树中同级的节点作为新的根节点
+        branch.removeNode(RuntimeException.class);
+        AssertUtils.assertException(() -> branch.addNode(Error.class));
+        branch.addNode(InterruptedException.class);
+        Assert.assertEquals(InterruptedException.class, branch.getRoot().orElse(null));
+    }
+
     @Test
     public void subtree() throws Exception {
         AssertUtils.assertException(() -> tree.subtree(Long.class));
@@ -181,9 +362,65 @@ public class GenericTreeTest {
                 IllegalArgumentException.class,
                 InterruptedException.class),
                 new ArrayList<>(subtree.getNodes()));
+        // 子树可修改，不影响当前树
+        subtree.addNode(UnsupportedOperationException.class);
+        Assert.assertEquals(RuntimeException.class, subtree.findParent(UnsupportedOperationException.class).orElse(null));
+        Assert.assertFalse(tree.contains(UnsupportedOperationException.class));
+        tree.freeze();
+        Assert.assertEquals(new ArrayList<>(tree.view(Exception.class).getNodes()), new ArrayList<>(tree.subtree(Exception.class).getNodes()));
         System.out.println(subtree);
     }
 
+    @Test
+    public void aggregate() throws Exception {
+        Assert.assertEquals(3, tree.depth(RuntimeException.class));
+        Assert.assertEquals(6, tree.size(RuntimeException.class));
+        Assert.assertEquals(5, tree.height());
+        Assert.assertEquals(Arrays.asList(Error.class, Exception.class), tree.nodesAtLevel(2));
+        Assert.assertTrue(tree.isLeaf(NullPointerException.class));
+        // 快照已缓存时通过快照查询，结果与遍历一致
+        SnapshotTree<Class> snapshot = tree.freeze();
+        Assert.assertEquals(snapshot.hash(Exception.class), tree.hash(Exception.class));
+        Assert.assertEquals(6, tree.size(RuntimeException.class));
+        Assert.assertEquals(Arrays.asList(Error.class, Exception.class), tree.nodesAtLevel(2));
+        tree.addNode(ArrayIndexOutOfBoundsException.class);
+        Assert.assertEquals(6, tree.height());
+        Assert.assertFalse(tree.isLeaf(IndexOutOfBoundsException.class));
+        Tree<Class> view = tree.view(RuntimeException.class);
+        Assert.assertEquals(1, view.depth(NullPointerException.class));
+        Assert.assertEquals(3, view.height());
+        tree.removeNode(ArrayIndexOutOfBoundsException.class);
+        Assert.assertEquals(2, view.height());
+    }
+
+    @Test
+    public void query() throws Exception {
+        AssertUtils.assertException(() -> tree.query(Long.class, node -> true, 0, 10));
+        AssertUtils.assertException(() -> tree.query(Exception.class, node -> true, -1, 10));
+        Assert.assertEquals(Collections.singletonList(IllegalArgumentException.class),
+                tree.query(Exception.class, node -> node.getSimpleName().startsWith("Illegal"), 0, 10));
+        Predicate<Class> exception = node -> node.getSimpleName().endsWith("Exception");
+        Assert.assertEquals(Arrays.asList(RuntimeException.class, IndexOutOfBoundsException.class),
+                tree.query(Exception.class, exception, 3, 2));
+        Assert.assertEquals(Collections.singletonList(InterruptedException.class), tree.query(Exception.class, exception, 9, 2));
+        Assert.assertTrue(tree.query(Error.class, exception, 0, 10).isEmpty());
+    }
+
+    @Test
+    public void view() throws Exception {
+        AssertUtils.assertException(() -> tree.view(Long.class));
+        Tree<Class> view = tree.view(RuntimeException.class);
+        Tree<Class> subtree = tree.subtree(RuntimeException.class);
+        Assert.assertEquals(new ArrayList<>(subtree.getNodes()), new ArrayList<>(view.getNodes()));
+        Assert.assertFalse(view.isAncestorOf(Exception.class, RuntimeException.class));
+
+        // 视图实时反映当前树的修改，子树是构造时的快照
+        tree.addNode(UnsupportedOperationException.class);
+        Assert.assertTrue(view.contains(UnsupportedOperationException.class));
+        Assert.assertFalse(subtree.contains(UnsupportedOperationException.class));
+        tree.removeNode(UnsupportedOperationException.class);
+    }
+
     @Test
     public void localTree() throws Exception {
         AssertUtils.assertException(() -> tree.localTree(Collections.singleton(Long.class)));
@@ -196,6 +433,28 @@ public class GenericTreeTest {
                 RuntimeException.class,
                 IndexOutOfBoundsException.class
         ), new ArrayList<>(localTree.getNodes()));
+        // 局部树可修改，快照已缓存时结果相同
+        localTree.addNode(ArithmeticException.class);
+        Assert.assertEquals(RuntimeException.class, localTree.findParent(ArithmeticException.class).orElse(null));
+        tree.freeze();
+        AssertUtils.assertException(() -> tree.localTree(Collections.singleton(Long.class)));
+        Assert.assertEquals(new ArrayList<>(tree.localTree(Arrays.asList(Error.class, IndexOutOfBoundsException.class)).getNodes()),
+                new ArrayList<>(localTree.getNodes()).subList(0, 6));
+
+        // 节点顺序取决于指定节点的顺序，与是否缓存快照无关
+        List<Class> selection = Arrays.asList(IndexOutOfBoundsException.class, Error.class, RuntimeException.class);
+        List<Class> expected = Arrays.asList(
+                Object.class,
+                Throwable.class,
+                Exception.class,
+                RuntimeException.class,
+                IndexOutOfBoundsException.class,
+                Error.class
+        );
+        Assert.assertEquals(expected, new ArrayList<>(tree.localTree(selection).getNodes()));
+        tree.addNode(UnsupportedOperationException.class);
+        Assert.assertEquals(expected, new ArrayList<>(tree.localTree(selection).getNodes()));
+        Assert.assertEquals(Arrays.asList(Exception.class, Error.class), tree.localTree(selection).findChildren(Throwable.class));
         System.out.println(localTree);
     }
 
@@ -0,0 +1,486 @@
+package com.github.peacetrue.tree;
+
+import com.github.peacetrue.util.AssertUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * 索引树测试，以类的树形结构为示例
+ *
+ * @author xiayx
+ */
+public class IndexedTreeTest {
+
+    private List<Class> classes = Arrays.asList(
+            Object.class,
+            Throwable.class,
+            Error.class,
+            LinkageError.class,
+            ThreadDeath.class,
+            AssertionError.class,
+            VirtualMachineError.class,
+            Exception.class,
+            CloneNotSupportedException.class,
+            ReflectiveOperationException.class,
+            RuntimeException.class,
+            IndexOutOfBoundsException.class,
+            ArithmeticException.class,
+            ClassCastException.class,
+            NullPointerException.class,
+            IllegalArgumentException.class,
+            InterruptedException.class
+    );
+
+    private IndexedTree<Class> tree = new IndexedTree<>(
+            node -> node.equals(Object.class),
+            (parent, child) -> parent.equals(child.getSuperclass()),
+            classes);
+
+    @Test
+    public void checkTreeValid() throws Exception {
+        Throwable throwable = AssertUtils.assertException("Exception.class'parent Throwable.class not exists", () -> new IndexedTree<>(
+                node -> node.equals(Object.class),
+                (parent, child) -> parent.equals(child.getSuperclass()),
+                Arrays.asList(Object.class, Exception.class)));
+        Assert.assertTrue(throwable instanceof ParentAbsentException);
+
+        throwable = AssertUtils.assertException("Object.class duplicated", () -> new IndexedTree<>(
+                node -> node.equals(Object.class),
+                (parent, child) -> parent.equals(child.getSuperclass()),
+                Arrays.asList(Object.class, Object.class)));
+        Assert.assertTrue(throwable instanceof NodeExistException);
+
+        // 1 <-> 2 成环，无法从根节点 0 到达
+        throwable = AssertUtils.assertException("1 and 2 form a cycle", () -> new IndexedTree<Integer>(
+                node -> node == 0,
+                (parent, child) -> child == 1 ? parent == 2 : child == 2 && parent == 1,
+                Arrays.asList(0, 1, 2)));
+        Assert.assertTrue(throwable instanceof ParentAbsentException);
+    }
+
+    @Test
+    public void keyPredicate() throws Exception {
+        KeyPredicate<Class, Class> keyPredicate = KeyPredicate.of(node -> node, Class::getSuperclass);
+        IndexedTree<Class> tree = new IndexedTree<>(keyPredicate, classes);
+        Assert.assertEquals(Object.class, tree.getRoot().orElse(null));
+        classes.forEach(aClass -> Assert.assertEquals(aClass.getSuperclass(), tree.findParent(aClass).orElse(null)));
+        Assert.assertEquals(this.tree.findYounger(Object.class), tree.findYounger(Object.class));
+        Throwable throwable = AssertUtils.assertException(() -> new IndexedTree<>(keyPredicate, Arrays.asList(Object.class, Exception.class)));
+        Assert.assertTrue(throwable instanceof ParentAbsentException);
+        tree.addNode(Number.class);
+        tree.addNode(Integer.class);
+        Assert.assertEquals(Number.class, tree.findParent(Integer.class).orElse(null));
+        tree.removeNode(Number.class);
+        AssertUtils.assertException(() -> tree.addNode(Long.class));
+    }
+
+    /** 主键重复或者节点关系成环 */
+    @Test
+    public void duplicateKey() throws Exception {
+        KeyPredicate<Class, String> byName = KeyPredicate.of(Class::getSimpleName,
+                node -> node.getSuperclass() == null ? null : node.getSuperclass().getSimpleName());
+        Throwable throwable = AssertUtils.assertException(() -> new IndexedTree<>(byName, Arrays.asList(Object.class, java.util.Date.class, java.sql.Date.class)));
+        Assert.assertTrue(throwable instanceof NodeExistException);
+        IndexedTree<Class> tree = new IndexedTree<>(byName, Arrays.asList(Object.class, java.util.Date.class));
+        throwable = AssertUtils.assertException(() -> tree.addNode(java.sql.Date.class));
+        Assert.assertTrue(throwable instanceof NodeExistException);
+        throwable = AssertUtils.assertException(() -> tree.addNodes(Collections.singletonList(java.sql.Date.class)));
+        Assert.assertTrue(throwable instanceof InvalidTreeException);
+        Assert.assertEquals(2, tree.getNodes().size());
+
+        Map<String, String> parents = new HashMap<>();
+        parents.put("b", "c");
+        parents.put("c", "b");
+        throwable = AssertUtils.assertException(() -> new IndexedTree<>(KeyPredicate.of(node -> node, parents::get), Arrays.asList("a", "b", "c")));
+        Assert.assertTrue(throwable instanceof ParentAbsentException);
+    }
+
+    @Test
+    public void getRoot() throws Exception {
+        Assert.assertEquals(Object.class, tree.getRoot().orElse(null));
+    }
+
+    @Test
+    public void contains() throws Exception {
+        classes.forEach(aClass -> Assert.assertTrue(tree.contains(aClass)));
+        Assert.assertFalse(tree.contains(Long.class));
+    }
+
+    @Test
+    public void findParent() throws Exception {
+        classes.forEach(aClass -> Assert.assertEquals(aClass.getSuperclass(), tree.findParent(aClass).orElse(null)));
+    }
+
+    @Test
+    public void findParents() throws Exception {
+        classes.forEach(aClass -> Assert.assertEquals(GenericTreeTest.getSuperClasses(aClass), tree.findParents(aClass)));
+    }
+
+    @Test
+    public void isAncestorOf() throws Exception {
+        classes.forEach(node -> classes.forEach(ancestor -> Assert.assertEquals(
+                GenericTreeTest.getSuperClasses(node).contains(ancestor), tree.isAncestorOf(ancestor, node))));
+        Assert.assertTrue(tree.isDescendantOf(RuntimeException.class, Throwable.class));
+        Assert.assertFalse(tree.isAncestorOf(Object.class, Long.class));
+    }
+
+    @Test
+    public void isAncestorOfAfterRelabel() throws Exception {
+        // 深链和宽扇会耗尽区间编号的空隙，触发重新编号
+        IndexedTree<Integer> tree = new IndexedTree<>(KeyPredicate.of(node -> node, node -> node == 0 ? null : parentOf(node)));
+        for (int i = 0; i < 3000; i++) tree.addNode(i);
+        Random random = new Random(0);
+        for (int i = 0; i < 2000; i++) {
+            int node = random.nextInt(3000), ancestor = random.nextInt(3000);
+            Assert.assertEquals(tree.findParents(node).contains(ancestor), tree.isAncestorOf(ancestor, node));
+        }
+        tree.removeNode(1200);
+        Assert.assertFalse(tree.isAncestorOf(0, 1300));
+        Assert.assertTrue(tree.isAncestorOf(999, 2500));
+    }
+
+    /** 0-1499 组成深链，1500-2999 都是 1000 的子节点 */
+    private static Integer parentOf(int node) {
+        return node < 1500 ? node - 1 : 1000;
+    }
+
+    @Test
+    public void findChildren() throws Exception {
+        Assert.assertEquals(Arrays.asList(
+                IndexOutOfBoundsException.class,
+                ArithmeticException.class,
+                ClassCastException.class,
+                NullPointerException.class,
+                IllegalArgumentException.class),
+                tree.findChildren(RuntimeException.class)
+        );
+        Assert.assertEquals(Collections.emptyList(), tree.findChildren(Long.class));
+    }
+
+    @Test
+    public void findYounger() throws Exception {
+        Assert.assertEquals(Arrays.asList(
+                CloneNotSupportedException.class,
+                ReflectiveOperationException.class,
+                RuntimeException.class,
+                IndexOutOfBoundsException.class,
+                ArithmeticException.class,
+                ClassCastException.class,
+                NullPointerException.class,
+                IllegalArgumentException.class,
+                InterruptedException.class),
+                tree.findYounger(Exception.class)
+        );
+    }
+
+    @Test
+    public void traverse() throws Exception {
+        // 深链不会导致栈溢出，并行遍历保持顺序
+        KeyPredicate<Integer, Integer> keyPredicate = KeyPredicate.of(node -> node, node -> node == 0 ? null : (node - 1) / (node < 50_000 ? 1 : 3));
+        List<Integer> nodes = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) nodes.add(i);
+        IndexedTree<Integer> tree = new IndexedTree<>(keyPredicate, nodes);
+        List<Integer> preOrder = tree.preOrder(0).collect(Collectors.toList());
+        Assert.assertEquals(nodes.size(), preOrder.size());
+        Assert.assertEquals(preOrder, tree.preOrder(0).parallel().collect(Collectors.toList()));
+        Assert.assertEquals(tree.postOrder(0).collect(Collectors.toList()), tree.postOrder(0).parallel().collect(Collectors.toList()));
+        Assert.assertEquals(preOrder.subList(1, preOrder.size()), tree.findYounger(0));
+        Assert.assertEquals(nodes, tree.breadthFirst(0).sorted().collect(Collectors.toList()));
+        Assert.assertEquals(tree.freeze().preOrder(0).collect(Collectors.toList()), preOrder);
+    }
+
+    @Test
+    public void aggregate() throws Exception {
+        Assert.assertEquals(3, tree.depth(RuntimeException.class));
+        Assert.assertEquals(6, tree.size(RuntimeException.class));
+        Assert.assertEquals(5, tree.height());
+        Assert.assertEquals(Arrays.asList(Error.class, Exception.class), tree.nodesAtLevel(2));
+        Assert.assertTrue(tree.nodesAtLevel(5).isEmpty());
+        Assert.assertTrue(tree.isLeaf(NullPointerException.class));
+        Assert.assertFalse(tree.isLeaf(Exception.class));
+        AssertUtils.assertException(() -> tree.depth(Long.class));
+        AssertUtils.assertException(() -> tree.nodesAtLevel(-1));
+
+        tree.addNode(UnsupportedOperationException.class);
+        Assert.assertEquals(7, tree.size(RuntimeException.class));
+        Assert.assertEquals(18, tree.size(Object.class));
+        tree.moveNode(RuntimeException.class, LinkageError.class);
+        Assert.assertEquals(4, tree.depth(RuntimeException.class));
+        Assert.assertEquals(6, tree.height());
+        Assert.assertEquals(12, tree.size(Error.class));
+        Assert.assertEquals(4, tree.size(Exception.class));
+        IndexedTree<Class> branch = tree.detach(RuntimeException.class);
+        Assert.assertEquals(4, tree.height());
+        Assert.assertEquals(5, tree.size(Error.class));
+        Assert.assertEquals(1, branch.depth(NullPointerException.class));
+        Assert.assertEquals(2, branch.height());
+        tree.removeNode(Error.class);
+        Assert.assertEquals(Collections.singletonList(Exception.class), tree.nodesAtLevel(2));
+        Assert.assertEquals(6, tree.size(Object.class));
+
+        // 随机修改后，计数与逐个遍历的结果一致
+        Random random = new Random(0);
+        KeyPredicate<Integer, Integer> keyPredicate = KeyPredicate.of(node -> node, node -> node == 0 ? null : random.nextInt(node));
+        IndexedTree<Integer> numbers = new IndexedTree<>(keyPredicate);
+        for (int i = 0; i < 2000; i++) numbers.addNode(i);
+        for (int i = 0; i < 200; i++) {
+            int node = 1 + random.nextInt(1999), parent = random.nextInt(2000);
+            if (!numbers.contains(node) || !numbers.contains(parent)) continue;
+            if (i % 20 == 0) numbers.removeNode(node);
+            else if (node != parent && !numbers.isAncestorOf(node, parent)) numbers.moveNode(node, parent);
+        }
+        SnapshotTree<Integer> snapshot = numbers.freeze();
+        for (Integer node : numbers.getNodes()) {
+            Assert.assertEquals(numbers.findParents(node).size(), numbers.depth(node));
+            Assert.assertEquals(numbers.findYounger(node).size() + 1, numbers.size(node));
+            Assert.assertEquals(snapshot.depth(node), numbers.depth(node));
+            Assert.assertEquals(snapshot.hash(node), numbers.hash(node));
+        }
+        for (int level = 0; level <= numbers.height(); level++) {
+            Assert.assertEquals(snapshot.nodesAtLevel(level), numbers.nodesAtLevel(level));
+        }
+        Assert.assertEquals(snapshot.height(), numbers.height());
+    }
+
+    @Test
+    public void hash() throws Exception {
+        long object = tree.hash(Object.class), exception = tree.hash(Exception.class), error = tree.hash(Error.class);
+        Assert.assertEquals(SubtreeHash.of(tree, Object.class), object);
+        Assert.assertEquals(tree.freeze().hash(Exception.class), exception);
+        // 相同的子树在不同的树中散列相同
+        Assert.assertEquals(exception, tree.subtree(Exception.class).hash(Exception.class));
+        Assert.assertEquals(exception, new GenericTree<>(KeyPredicate.of(node -> node, Class::getSuperclass), classes).hash(Exception.class));
+        Assert.assertNotEquals(exception, tree.hash(RuntimeException.class));
+        AssertUtils.assertException(() -> tree.hash(Long.class));
+
+        // 修改后只有父辈节点的散列发生变化，恢复后散列复原
+        tree.addNode(UnsupportedOperationException.class);
+        Assert.assertNotEquals(exception, tree.hash(Exception.class));
+        Assert.assertNotEquals(object, tree.hash(Object.class));
+        Assert.assertEquals(error, tree.hash(Error.class));
+        Assert.assertEquals(SubtreeHash.of(tree, Object.class), tree.hash(Object.class));
+        tree.removeNode(UnsupportedOperationException.class);
+        Assert.assertEquals(exception, tree.hash(Exception.class));
+        Assert.assertEquals(object, tree.hash(Object.class));
+
+        // 散列与子节点的顺序相关
+        tree.moveNode(CloneNotSupportedException.class, Exception.class);
+        Assert.assertNotEquals(exception, tree.hash(Exception.class));
+        Assert.assertEquals(SubtreeHash.of(tree, Object.class), tree.hash(Object.class));
+        tree.moveNode(ReflectiveOperationException.class, Exception.class);
+        tree.moveNode(RuntimeException.class, Exception.class);
+        tree.moveNode(InterruptedException.class, Exception.class);
+        Assert.assertEquals(exception, tree.hash(Exception.class));
+
+        IndexedTree<Class> branch = tree.detach(Exception.class);
+        Assert.assertEquals(exception, branch.hash(Exception.class));
+        Assert.assertEquals(SubtreeHash.of(tree, Object.class), tree.hash(Object.class));
+    }
+
+    @Test
+    public void getAllNodes() throws Exception {
+        Assert.assertEquals(classes, new ArrayList<>(tree.getNodes()));
+    }
+
+    @Test
+    public void addNode() throws Exception {
+        IndexedTree<Class> tree = new IndexedTree<>(
+                node -> node.equals(Object.class),
+                (parent, child) -> parent.equals(child.getSuperclass())
+        );
+        AssertUtils.assertException(() -> tree.addNode(String.class));
+        tree.addNode(Object.class);
+        AssertUtils.assertException(() -> tree.addNode(Integer.class));
+        tree.addNode(Number.class);
+        tree.addNode(Integer.class);
+        tree.addNode(String.class);
+        AssertUtils.assertException(() -> tree.addNode(String.class));
+        Assert.assertEquals(Arrays.asList(Number.class, String.class), tree.findChildren(Object.class));
+        Assert.assertEquals(Number.class, tree.findParent(Integer.class).orElse(null));
+    }
+
+    @Test
+    public void addNodes() throws Exception {
+        List<Class> shuffled = new ArrayList<>(classes);
+        Collections.shuffle(shuffled, new Random(0));
+        IndexedTree<Class> tree = new IndexedTree<>(KeyPredicate.of(node -> node, Class::getSuperclass));
+        tree.addNodes(shuffled);
+        classes.forEach(aClass -> Assert.assertEquals(aClass.getSuperclass(), tree.findParent(aClass).orElse(null)));
+        // 同一层级的节点保持提交顺序
+        Assert.assertEquals(shuffled.indexOf(Error.class) < shuffled.indexOf(Exception.class) ? Arrays.asList(Error.class, Exception.class)
+                : Arrays.asList(Exception.class, Error.class), tree.findChildren(Throwable.class));
+        Assert.assertTrue(tree.isAncestorOf(Throwable.class, NullPointerException.class));
+
+        // 任一节点无效时不添加任何节点
+        InvalidTreeException exception = (InvalidTreeException) AssertUtils.assertException(() -> tree.addNodes(
+                Arrays.asList(Integer.class, Number.class, ArrayList.class, NullPointerException.class)));
+        Assert.assertEquals(Collections.singletonList(NullPointerException.class), exception.getDuplicates());
+        Assert.assertEquals(Collections.singletonList(ArrayList.class), exception.getOrphans());
+        Assert.assertFalse(tree.contains(Number.class));
+        Assert.assertEquals(classes.size(), tree.getNodes().size());
+
+        tree.addNodes(Arrays.asList(Integer.class, Long.class, Number.class));
+        Assert.assertEquals(Arrays.asList(Integer.class, Long.class), tree.findChildren(Number.class));
+
+        exception = (InvalidTreeException) AssertUtils.assertException(() -> new IndexedTree<>(
+                node -> node.equals(Object.class), (Class parent, Class child) -> parent.equals(child.getSuperclass()))
+                .addNodes(Arrays.asList(Exception.class, Throwable.class)));
+        Assert.assertEquals(Collections.emptyList(), exception.getRoots());
+        Assert.assertEquals(Arrays.asList(Exception.class, Throwable.class), exception.getOrphans());
+    }
+
+    /** 大批量添加时一次计算索引，链状树的添加复杂度与深度无关 */
+    @Test
+    public void addNodesChain() throws Exception {
+        int size = 100_000;
+        KeyPredicate<Integer, Integer> keyPredicate = KeyPredicate.of(node -> node, node -> node == 0 ? null : node - 1);
+        IndexedTree<Integer> tree = new IndexedTree<>(keyPredicate);
+        tree.addNode(0);
+        List<Integer> nodes = IntStream.range(1, size).boxed().collect(Collectors.toList());
+        Collections.reverse(nodes);
+        tree.addNodes(nodes);
+        Assert.assertEquals(size, tree.size(0));
+        Assert.assertEquals(size, tree.height());
+        Assert.assertEquals(size - 1, tree.depth(size - 1));
+        Assert.assertTrue(tree.isAncestorOf(1, size - 1));
+        Assert.assertEquals(SubtreeHash.of(tree, 0), tree.hash(0));
+
+        // 小批量逐个添加
+        tree.addNodes(Arrays.asList(size + 1, size));
+        Assert.assertEquals(size + 2, tree.size(0));
+        Assert.assertTrue(tree.isAncestorOf(size - 1, size + 1));
+        Assert.assertEquals(SubtreeHash.of(tree, 0), tree.hash(0));
+    }
+
+    @Test
+    public void removeNode() throws Exception {
+        AssertUtils.assertException(() -> tree.removeNode(Long.class));
+        tree.removeNode(NullPointerException.class);
+        tree.removeNode(RuntimeException.class);
+        AssertUtils.assertException(() -> tree.removeNode(IllegalArgumentException.class));
+        Assert.assertFalse(tree.contains(IllegalArgumentException.class));
+        Assert.assertEquals(Arrays.asList(
+                CloneNotSupportedException.class,
+                ReflectiveOperationException.class,
+                InterruptedException.class),
+                tree.findChildren(Exception.class));
+        Assert.assertEquals(classes.size() - 6, tree.getNodes().size());
+    }
+
+    @Test
+    public void moveNode() throws Exception {
+        AssertUtils.assertException(() -> tree.moveNode(Long.class, Object.class));
+        Throwable throwable = AssertUtils.assertException(() -> tree.moveNode(Exception.class, NullPointerException.class));
+        Assert.assertTrue(throwable instanceof CyclicMoveException);
+        AssertUtils.assertException(() -> tree.moveNode(Exception.class, Exception.class));
+
+        tree.moveNode(RuntimeException.class, Error.class);
+        Assert.assertEquals(Error.class, tree.findParent(RuntimeException.class).orElse(null));
+        Assert.assertEquals(Arrays.asList(Object.class, Throwable.class, Error.class, RuntimeException.class),
+                tree.findParents(NullPointerException.class));
+        Assert.assertTrue(tree.isAncestorOf(Error.class, NullPointerException.class));
+        Assert.assertFalse(tree.isAncestorOf(Exception.class, NullPointerException.class));
+        Assert.assertEquals(RuntimeException.class, tree.findChildren(Error.class).get(4));
+        Assert.assertEquals(classes.size(), tree.getNodes().size());
+
+        // 随机移动，区间编号与父节点保持一致
+        IndexedTree<Integer> numbers = new IndexedTree<>(KeyPredicate.of(node -> node, node -> node == 0 ? null : (node - 1) / 4));
+        for (int i = 0; i < 2000; i++) numbers.addNode(i);
+        Random random = new Random(0);
+        for (int i = 0; i < 500; i++) {
+            int node = 1 + random.nextInt(1999), parent = random.nextInt(2000);
+            if (node == parent || numbers.findParents(parent).contains(node)) continue;
+            numbers.moveNode(node, parent);
+        }
+        for (int i = 0; i < 2000; i++) {
+            int node = random.nextInt(2000), ancestor = random.nextInt(2000);
+            Assert.assertEquals(numbers.findParents(node).contains(ancestor), numbers.isAncestorOf(ancestor, node));
+        }
+        Assert.assertEquals(2000, numbers.preOrder(0).count());
+    }
+
+    @Test
+    public void detach() throws Exception {
+        AssertUtils.assertException(() -> tree.detach(Long.class));
+        IndexedTree<Class> branch = tree.detach(RuntimeException.class);
+        Assert.assertEquals(classes.subList(10, 16), new ArrayList<>(branch.getNodes()));
+        Assert.assertEquals(RuntimeException.class, branch.getRoot().orElse(null));
+        Assert.assertFalse(branch.findParent(RuntimeException.class).isPresent());
+        Assert.assertTrue(branch.isAncestorOf(RuntimeException.class, NullPointerException.class));
+        Assert.assertFalse(tree.contains(NullPointerException.class));
+        Assert.assertEquals(classes.size() - 6, tree.getNodes().size());
+        Assert.assertEquals(Arrays.asList(CloneNotSupportedException.class, ReflectiveOperationException.class, InterruptedException.class),
+                tree.findChildren(Exception.class));
+        branch.addNode(UnsupportedOperationException.class);
+        Assert.assertEquals(RuntimeException.class, branch.findParent(UnsupportedOperationException.class).orElse(null));
+        // 删除分支的根节点后，可以添加原树中同级的节点作为新的根节点
+        branch.removeNode(RuntimeException.class);
+        AssertUtils.assertException(() -> branch.addNode(Error.class));
+        branch.addNode(InterruptedException.class);
+        Assert.assertEquals(InterruptedException.class, branch.getRoot().orElse(null));
+        tree.addNode(RuntimeException.class);
+        Assert.assertTrue(tree.isAncestorOf(Exception.class, RuntimeException.class));
+
+        IndexedTree<Class> whole = tree.detach(Object.class);
+        Assert.assertEquals(0, tree.getNodes().size());
+        Assert.assertEquals(Object.class, whole.getRoot().orElse(null));
+        tree.addNode(Object.class);
+    }
+
+    @Test
+    public void subtree() throws Exception {
+        AssertUtils.assertException(() -> tree.subtree(Long.class));
+        Tree<Class> subtree = tree.subtree(Exception.class);
+        Assert.assertEquals(classes.subList(7, classes.size()), new ArrayList<>(subtree.getNodes()));
+        Assert.assertEquals(Exception.class, subtree.getRoot().orElse(null));
+        Assert.assertFalse(subtree.findParent(Exception.class).isPresent());
+        subtree.removeNode(Exception.class);
+        subtree.addNode(Error.class);
+        Assert.assertEquals(Error.class, subtree.getRoot().orElse(null));
+    }
+
+    @Test
+    public void view() throws Exception {
+        AssertUtils.assertException(() -> tree.view(Long.class));
+        Tree<Class> view = tree.view(Exception.class);
+        Assert.assertEquals(classes.subList(7, classes.size()), new ArrayList<>(view.getNodes()));
+        Assert.assertFalse(view.contains(Throwable.class));
+        Assert.assertFalse(view.findParent(Exception.class).isPresent());
+        Assert.assertEquals(Arrays.asList(Exception.class, RuntimeException.class), view.findParents(NullPointerException.class));
+        Assert.assertTrue(view.findChildren(Error.class).isEmpty());
+        AssertUtils.assertException(() -> view.addNode(UnsupportedOperationException.class));
+
+        // 嵌套视图仍然限定在原树的分支内
+        Tree<Class> nested = view.subtree(RuntimeException.class);
+        Assert.assertEquals(Collections.singletonList(RuntimeException.class), nested.findParents(NullPointerException.class));
+        AssertUtils.assertException(() -> nested.view(Exception.class));
+
+        // 原树的修改实时反映到视图中
+        tree.addNode(UnsupportedOperationException.class);
+        Assert.assertTrue(nested.contains(UnsupportedOperationException.class));
+        tree.removeNode(RuntimeException.class);
+        Assert.assertFalse(nested.getRoot().isPresent());
+        Assert.assertEquals(0, nested.getNodes().size());
+        Assert.assertEquals(4, view.getNodes().size());
+    }
+
+    @Test
+    public void localTree() throws Exception {
+        AssertUtils.assertException(() -> tree.localTree(Collections.singleton(Long.class)));
+        Tree<Class> localTree = tree.localTree(Arrays.asList(Error.class, IndexOutOfBoundsException.class));
+        Assert.assertEquals(Arrays.asList(
+                Object.class,
+                Throwable.class,
+                Error.class,
+                Exception.class,
+                RuntimeException.class,
+                IndexOutOfBoundsException.class
+        ), new ArrayList<>(localTree.getNodes()));
+        Assert.assertEquals(Arrays.asList(Error.class, Exception.class), localTree.findChildren(Throwable.class));
+    }
+
+}
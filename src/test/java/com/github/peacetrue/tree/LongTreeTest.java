@@ -0,0 +1,95 @@
+package com.github.peacetrue.tree;
+
+import com.github.peacetrue.util.AssertUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.*;
+
+/**
+ * 主键树测试
+ * <pre>
+ * 1
+ * -2
+ * --4
+ * ---6
+ * --5
+ * -3
+ * </pre>
+ *
+ * @author xiayx
+ */
+public class LongTreeTest {
+
+    private LongTree tree = new LongTree(2);
+
+    {
+        tree.addRoot(1);
+        tree.addNode(2, 1);
+        tree.addNode(3, 1);
+        tree.addNode(4, 2);
+        tree.addNode(5, 2);
+        tree.addNode(6, 4);
+    }
+
+    @Test
+    public void addNode() throws Exception {
+        Assert.assertTrue(AssertUtils.assertException(() -> tree.addRoot(7)) instanceof MultiRootException);
+        Assert.assertTrue(AssertUtils.assertException(() -> tree.addNode(2, 1)) instanceof NodeExistException);
+        Assert.assertTrue(AssertUtils.assertException(() -> tree.addNode(8, 7)) instanceof ParentAbsentException);
+        Assert.assertEquals(6, tree.size());
+        Assert.assertEquals(1, tree.getRoot());
+        Assert.assertTrue(tree.contains(6));
+        Assert.assertFalse(tree.contains(7));
+    }
+
+    @Test
+    public void parentOf() throws Exception {
+        Assert.assertEquals(-1, tree.parentOf(1, -1));
+        Assert.assertEquals(4, tree.parentOf(6, -1));
+        Assert.assertTrue(AssertUtils.assertException(() -> tree.parentOf(7, -1)) instanceof NodeAbsentException);
+    }
+
+    @Test
+    public void depth() throws Exception {
+        Assert.assertEquals(0, tree.depth(1));
+        Assert.assertEquals(3, tree.depth(6));
+    }
+
+    @Test
+    public void forEach() throws Exception {
+        List<Long> children = new ArrayList<>();
+        tree.forEachChild(2, children::add);
+        Assert.assertEquals(Arrays.asList(4L, 5L), children);
+
+        List<Long> younger = new ArrayList<>();
+        tree.forEachYounger(1, younger::add);
+        Assert.assertEquals(Arrays.asList(2L, 4L, 6L, 5L, 3L), younger);
+        younger.clear();
+        tree.forEachYounger(2, younger::add);
+        Assert.assertEquals(Arrays.asList(4L, 6L, 5L), younger);
+    }
+
+    @Test
+    public void ancestors() throws Exception {
+        long[] buffer = new long[4];
+        Assert.assertEquals(3, tree.ancestors(6, buffer));
+        Assert.assertArrayEquals(new long[]{1, 2, 4, 0}, buffer);
+        Assert.assertEquals(0, tree.ancestors(1, buffer));
+        AssertUtils.assertException(() -> tree.ancestors(6, new long[2]));
+    }
+
+    @Test
+    public void convert() throws Exception {
+        SnapshotTree<Long> snapshot = tree.toTree(Long::valueOf);
+        Assert.assertEquals(Arrays.asList(1L, 2L, 4L, 6L, 5L, 3L), new ArrayList<>(snapshot.getNodes()));
+        Assert.assertEquals(Arrays.asList(1L, 2L, 4L), snapshot.findParents(6L));
+
+        LongTree copy = LongTree.of(snapshot, Long::longValue);
+        Assert.assertEquals(6, copy.size());
+        List<Long> younger = new ArrayList<>();
+        copy.forEachYounger(1, younger::add);
+        Assert.assertEquals(Arrays.asList(2L, 4L, 6L, 5L, 3L), younger);
+    }
+
+}
@@ -0,0 +1,137 @@
+package com.github.peacetrue.tree;
+
+import com.github.peacetrue.tree.TreeMetrics.Operation;
+import com.github.peacetrue.util.AssertUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.LongStream;
+
+/**
+ * 度量树测试，以类的树形结构为示例
+ *
+ * @author xiayx
+ */
+public class MeteredTreeTest {
+
+    private List<Class> classes = Arrays.asList(
+            Object.class,
+            Throwable.class,
+            Error.class,
+            LinkageError.class,
+            ThreadDeath.class,
+            AssertionError.class,
+            VirtualMachineError.class,
+            Exception.class,
+            CloneNotSupportedException.class,
+            ReflectiveOperationException.class,
+            RuntimeException.class,
+            IndexOutOfBoundsException.class,
+            ArithmeticException.class,
+            ClassCastException.class,
+            NullPointerException.class,
+            IllegalArgumentException.class,
+            InterruptedException.class
+    );
+
+    @Test
+    public void operation() throws Exception {
+        CountingTreeMetrics metrics = new CountingTreeMetrics();
+        MeteredTree<Class> tree = new MeteredTree<>(new IndexedTree<>(KeyPredicate.of(node -> node, Class::getSuperclass), classes), metrics);
+
+        Assert.assertEquals(Exception.class, tree.findParent(RuntimeException.class).get());
+        Assert.assertEquals(Arrays.asList(Object.class, Throwable.class), tree.findParents(Exception.class));
+        Assert.assertEquals(7, tree.findChildren(RuntimeException.class).size() + tree.findChildren(Throwable.class).size());
+        Assert.assertEquals(1, metrics.getCount(Operation.FIND_PARENT));
+        Assert.assertEquals(1, metrics.getCount(Operation.FIND_PARENTS));
+        Assert.assertEquals(2, metrics.getCount(Operation.FIND_CHILDREN));
+        Assert.assertEquals(0, metrics.getCount(Operation.FIND_YOUNGER));
+
+        // 结果大小按对数分桶：子节点数目 5 位于第 3 个桶，2 位于第 2 个桶
+        long[] sizes = metrics.getResultSizeHistogram(Operation.FIND_CHILDREN);
+        Assert.assertEquals(1, sizes[3]);
+        Assert.assertEquals(1, sizes[2]);
+        Assert.assertEquals(2, LongStream.of(metrics.getLatencyHistogram(Operation.FIND_CHILDREN)).sum());
+        Assert.assertTrue(metrics.getMaxNanos(Operation.FIND_CHILDREN) <= metrics.getTotalNanos(Operation.FIND_CHILDREN));
+        Assert.assertEquals(0, LongStream.of(metrics.getResultSizeHistogram(Operation.CONTAINS)).sum());
+        Assert.assertEquals(17, tree.getNodes().size());
+        Assert.assertEquals(1, LongStream.of(metrics.getResultSizeHistogram(Operation.GET_NODES)).sum());
+
+        // 失败的操作同样记录耗时，不记录结果大小
+        AssertUtils.assertException(() -> tree.depth(Long.class));
+        Assert.assertEquals(1, metrics.getCount(Operation.DEPTH));
+        AssertUtils.assertException(() -> tree.query(Long.class, node -> true, 0, 10));
+        Assert.assertEquals(1, metrics.getCount(Operation.QUERY));
+        Assert.assertEquals(0, LongStream.of(metrics.getResultSizeHistogram(Operation.QUERY)).sum());
+        AssertUtils.assertException(() -> tree.addNode(Object.class));
+        Assert.assertEquals(1, metrics.getCount(Operation.ADD_NODE));
+
+        metrics.reset();
+        Assert.assertEquals(0, metrics.getCount(Operation.FIND_PARENT));
+        Assert.assertEquals(0, LongStream.of(metrics.getResultSizeHistogram(Operation.FIND_CHILDREN)).sum());
+    }
+
+    /** 遍历直接委托给被包装的树，不通过查找子节点记录操作 */
+    @Test
+    public void traversal() throws Exception {
+        CountingTreeMetrics metrics = new CountingTreeMetrics();
+        MeteredTree<Class> tree = new MeteredTree<>(new IndexedTree<>(KeyPredicate.of(node -> node, Class::getSuperclass), classes), metrics);
+        Assert.assertEquals(classes.size(), tree.stream().count());
+        Assert.assertEquals(classes.size(), tree.preOrder(Object.class).count());
+        Assert.assertEquals(2, tree.preOrder(Object.class, 1).count());
+        Assert.assertEquals(classes.size(), tree.postOrder(Object.class).count());
+        Assert.assertEquals(classes.size(), tree.breadthFirst(Object.class).count());
+        Assert.assertEquals(0, metrics.getCount(Operation.FIND_CHILDREN));
+    }
+
+    @Test
+    public void shape() throws Exception {
+        CountingTreeMetrics metrics = new CountingTreeMetrics();
+        MeteredTree<Class> tree = new MeteredTree<>(new IndexedTree<>(KeyPredicate.of(node -> node, Class::getSuperclass), classes), metrics);
+        // 只在主动采样时统计形状
+        Assert.assertEquals(0, metrics.getSize());
+        tree.sampleShape();
+        Assert.assertEquals(17, metrics.getSize());
+        Assert.assertEquals(5, metrics.getHeight());
+
+        tree.addNode(UnsupportedOperationException.class);
+        tree.addNode(ArrayIndexOutOfBoundsException.class);
+        Assert.assertEquals(17, metrics.getSize());
+        tree.sampleShape();
+        Assert.assertEquals(19, metrics.getSize());
+        Assert.assertEquals(6, metrics.getHeight());
+        Assert.assertEquals(2, metrics.getCount(Operation.ADD_NODE));
+        Assert.assertEquals(0, metrics.getCount(Operation.SIZE));
+
+        // 清空时同时清空形状
+        metrics.reset();
+        Assert.assertEquals(0, metrics.getSize());
+        Assert.assertEquals(0, metrics.getHeight());
+    }
+
+    @Test
+    public void predicate() throws Exception {
+        CountingTreeMetrics metrics = new CountingTreeMetrics();
+        GenericTree<Class> tree = new GenericTree<>(
+                TreeMetrics.meter((RootPredicate<Class>) node -> node.equals(Object.class), metrics),
+                TreeMetrics.meter((RelationPredicate<Class>) (parent, child) -> parent.equals(child.getSuperclass()), metrics),
+                classes);
+        Assert.assertEquals(classes.size(), metrics.getRootPredicateCount());
+        Assert.assertTrue(metrics.getRelationPredicateCount() > 0);
+
+        long count = metrics.getRelationPredicateCount();
+        tree.findChildren(RuntimeException.class);
+        Assert.assertEquals(count + classes.size(), metrics.getRelationPredicateCount());
+
+        // 基于主键的节点关系判断保留主键索引的能力
+        metrics.reset();
+        KeyPredicate<Class, Class> keyPredicate = TreeMetrics.meter(KeyPredicate.of(node -> node, Class::getSuperclass), metrics);
+        IndexedTree<Class> indexedTree = new IndexedTree<>(keyPredicate, classes);
+        Assert.assertEquals(classes.size() - 1, metrics.getRelationPredicateCount());
+        indexedTree.findChildren(RuntimeException.class);
+        Assert.assertEquals(classes.size() - 1, metrics.getRelationPredicateCount());
+    }
+
+}
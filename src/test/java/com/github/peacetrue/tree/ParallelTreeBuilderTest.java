@@ -0,0 +1,78 @@
+package com.github.peacetrue.tree;
+
+import com.github.peacetrue.util.AssertUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.*;
+
+/**
+ * 并行构造树测试
+ *
+ * @author xiayx
+ */
+public class ParallelTreeBuilderTest {
+
+    private List<Class> classes = Arrays.asList(
+            Object.class,
+            Throwable.class,
+            Error.class,
+            Exception.class,
+            RuntimeException.class,
+            NullPointerException.class,
+            IllegalArgumentException.class,
+            InterruptedException.class
+    );
+
+    private ParallelTreeBuilder<Class> builder = new ParallelTreeBuilder<>(
+            node -> node.equals(Object.class),
+            (parent, child) -> parent.equals(child.getSuperclass())
+    );
+
+    private ParallelTreeBuilder<Class> keyBuilder = new ParallelTreeBuilder<>(KeyPredicate.of(node -> node, Class::getSuperclass));
+
+    @Test
+    public void build() throws Exception {
+        for (ParallelTreeBuilder<Class> builder : Arrays.asList(this.builder, keyBuilder)) {
+            Tree<Class> tree = builder.build(classes);
+            Assert.assertEquals(classes, new ArrayList<>(tree.getNodes()));
+            Assert.assertEquals(Object.class, tree.getRoot().orElse(null));
+            classes.forEach(aClass -> Assert.assertEquals(aClass.getSuperclass(), tree.findParent(aClass).orElse(null)));
+            Assert.assertEquals(Arrays.asList(Error.class, Exception.class), tree.findChildren(Throwable.class));
+            AssertUtils.assertException(() -> tree.addNode(String.class));
+            AssertUtils.assertException(() -> tree.removeNode(Exception.class));
+        }
+    }
+
+    @Test
+    public void reportAllInvalidNodes() throws Exception {
+        List<Class> classes = Arrays.asList(
+                Object.class,
+                Exception.class,
+                NullPointerException.class,
+                InterruptedException.class,
+                InterruptedException.class
+        );
+        for (ParallelTreeBuilder<Class> builder : Arrays.asList(this.builder, keyBuilder)) {
+            InvalidTreeException exception = (InvalidTreeException) AssertUtils.assertException(() -> builder.build(classes));
+            Assert.assertEquals(Collections.singletonList(Object.class), exception.getRoots());
+            Assert.assertEquals(Collections.singletonList(InterruptedException.class), exception.getDuplicates());
+            Assert.assertEquals(Arrays.asList(Exception.class, NullPointerException.class), exception.getOrphans());
+        }
+
+        InvalidTreeException exception = (InvalidTreeException) AssertUtils.assertException(() -> builder.build(Collections.emptyList()));
+        Assert.assertTrue(exception.getRoots().isEmpty());
+    }
+
+    @Test
+    public void reportCycle() throws Exception {
+        // 1 <-> 2 成环，无法从根节点 0 到达
+        ParallelTreeBuilder<Integer> builder = new ParallelTreeBuilder<>(
+                node -> node == 0,
+                (parent, child) -> child == 3 ? parent == 0 : child == 1 ? parent == 2 : child == 2 && parent == 1
+        );
+        InvalidTreeException exception = (InvalidTreeException) AssertUtils.assertException(() -> builder.build(Arrays.asList(0, 1, 2, 3)));
+        Assert.assertEquals(Arrays.asList(1, 2), exception.getOrphans());
+    }
+
+}
@@ -0,0 +1,166 @@
+package com.github.peacetrue.tree;
+
+import com.github.peacetrue.util.AssertUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.*;
+
+/**
+ * 快照树测试，以类的树形结构为示例
+ *
+ * @author xiayx
+ */
+public class SnapshotTreeTest {
+
+    private List<Class> classes = Arrays.asList(
+            Object.class,
+            Throwable.class,
+            Error.class,
+            LinkageError.class,
+            ThreadDeath.class,
+            AssertionError.class,
+            VirtualMachineError.class,
+            Exception.class,
+            CloneNotSupportedException.class,
+            ReflectiveOperationException.class,
+            RuntimeException.class,
+            IndexOutOfBoundsException.class,
+            ArithmeticException.class,
+            ClassCastException.class,
+            NullPointerException.class,
+            IllegalArgumentException.class,
+            InterruptedException.class
+    );
+
+    private GenericTree<Class> source = new GenericTree<>(
+            node -> node.equals(Object.class),
+            (parent, child) -> parent.equals(child.getSuperclass()),
+            classes);
+
+    private SnapshotTree<Class> tree = source.freeze();
+
+    @Test
+    public void freeze() throws Exception {
+        Assert.assertSame(tree, tree.freeze());
+        Assert.assertEquals(classes, new ArrayList<>(tree.getNodes()));
+        source.removeNode(Exception.class);
+        Assert.assertTrue(tree.contains(Exception.class));
+        Assert.assertEquals(0, new GenericTree<Class>(node -> true, (parent, child) -> false).freeze().getNodes().size());
+    }
+
+    @Test
+    public void getRoot() throws Exception {
+        Assert.assertEquals(Object.class, tree.getRoot().orElse(null));
+    }
+
+    @Test
+    public void contains() throws Exception {
+        classes.forEach(aClass -> Assert.assertTrue(tree.contains(aClass)));
+        Assert.assertFalse(tree.contains(Long.class));
+    }
+
+    @Test
+    public void findParent() throws Exception {
+        classes.forEach(aClass -> Assert.assertEquals(aClass.getSuperclass(), tree.findParent(aClass).orElse(null)));
+    }
+
+    @Test
+    public void findParents() throws Exception {
+        classes.forEach(aClass -> Assert.assertEquals(GenericTreeTest.getSuperClasses(aClass), tree.findParents(aClass)));
+    }
+
+    @Test
+    public void isAncestorOf() throws Exception {
+        classes.forEach(node -> classes.forEach(ancestor -> Assert.assertEquals(
+                source.isAncestorOf(ancestor, node), tree.isAncestorOf(ancestor, node))));
+        Assert.assertFalse(tree.subtree(Exception.class).isAncestorOf(Throwable.class, RuntimeException.class));
+    }
+
+    @Test
+    public void findSameParent() throws Exception {
+        classes.forEach(node -> classes.forEach(other -> {
+            List<Class> sameParents = new ArrayList<>(GenericTreeTest.getSuperClasses(node));
+            sameParents.retainAll(GenericTreeTest.getSuperClasses(other));
+            Assert.assertEquals(sameParents, tree.findSameParents(Arrays.asList(node, other)));
+            Assert.assertEquals(sameParents.isEmpty() ? null : sameParents.get(sameParents.size() - 1),
+                    tree.findSameParent(node, other).orElse(null));
+        }));
+        Assert.assertEquals(Throwable.class, tree.findSameParent(
+                Arrays.asList(NullPointerException.class, InterruptedException.class, ThreadDeath.class)).orElse(null));
+        Assert.assertFalse(tree.findSameParent(Collections.emptyList()).isPresent());
+        Assert.assertFalse(tree.findSameParent(Object.class, Long.class).isPresent());
+
+        SnapshotTree<Class> subtree = tree.subtree(Exception.class);
+        Assert.assertEquals(Exception.class, subtree.findSameParent(RuntimeException.class, InterruptedException.class).orElse(null));
+        Assert.assertFalse(subtree.findSameParent(RuntimeException.class, Exception.class).isPresent());
+        Assert.assertFalse(subtree.findSameParent(RuntimeException.class, Error.class).isPresent());
+    }
+
+    @Test
+    public void findChildren() throws Exception {
+        classes.forEach(aClass -> Assert.assertEquals(source.findChildren(aClass), tree.findChildren(aClass)));
+    }
+
+    @Test
+    public void findYounger() throws Exception {
+        classes.forEach(aClass -> Assert.assertEquals(source.findYounger(aClass), tree.findYounger(aClass)));
+        Assert.assertEquals(Collections.emptyList(), tree.findYounger(Long.class));
+    }
+
+    @Test
+    public void modify() throws Exception {
+        AssertUtils.assertException(() -> tree.addNode(String.class));
+        AssertUtils.assertException(() -> tree.removeNode(Exception.class));
+    }
+
+    @Test
+    public void subtree() throws Exception {
+        AssertUtils.assertException(() -> tree.subtree(Long.class));
+        SnapshotTree<Class> subtree = tree.subtree(Exception.class);
+        Assert.assertEquals(classes.subList(7, classes.size()), new ArrayList<>(subtree.getNodes()));
+        Assert.assertFalse(subtree.contains(Error.class));
+        Assert.assertFalse(subtree.findParent(Exception.class).isPresent());
+        Assert.assertEquals(Collections.singletonList(Exception.class), subtree.findParents(RuntimeException.class));
+
+        SnapshotTree<Class> nested = subtree.subtree(RuntimeException.class);
+        Assert.assertEquals(RuntimeException.class, nested.getRoot().orElse(null));
+        Assert.assertEquals(6, nested.getNodes().size());
+        AssertUtils.assertException(() -> nested.subtree(Exception.class));
+    }
+
+    @Test
+    public void aggregate() throws Exception {
+        Assert.assertEquals(3, tree.depth(RuntimeException.class));
+        Assert.assertEquals(6, tree.size(RuntimeException.class));
+        Assert.assertEquals(5, tree.height());
+        Assert.assertEquals(Arrays.asList(Error.class, Exception.class), tree.nodesAtLevel(2));
+        Assert.assertTrue(tree.isLeaf(ThreadDeath.class));
+        SnapshotTree<Class> subtree = tree.subtree(Exception.class);
+        Assert.assertEquals(1, subtree.depth(RuntimeException.class));
+        Assert.assertEquals(3, subtree.height());
+        Assert.assertEquals(tree.nodesAtLevel(4), subtree.nodesAtLevel(2));
+        AssertUtils.assertException(() -> subtree.depth(Error.class));
+    }
+
+    @Test
+    public void localTree() throws Exception {
+        AssertUtils.assertException(() -> tree.localTree(Collections.singleton(Long.class)));
+        Tree<Class> localTree = tree.localTree(Arrays.asList(IndexOutOfBoundsException.class, Error.class));
+        Assert.assertEquals(Arrays.asList(
+                Object.class,
+                Throwable.class,
+                Error.class,
+                Exception.class,
+                RuntimeException.class,
+                IndexOutOfBoundsException.class
+        ), new ArrayList<>(localTree.getNodes()));
+        Assert.assertEquals(Arrays.asList(Error.class, Exception.class), localTree.findChildren(Throwable.class));
+        Assert.assertEquals(RuntimeException.class, localTree.findParent(IndexOutOfBoundsException.class).orElse(null));
+
+        Tree<Class> subLocalTree = tree.subtree(Exception.class).localTree(Collections.singleton(NullPointerException.class));
+        Assert.assertEquals(Arrays.asList(Exception.class, RuntimeException.class, NullPointerException.class),
+                new ArrayList<>(subLocalTree.getNodes()));
+    }
+
+}
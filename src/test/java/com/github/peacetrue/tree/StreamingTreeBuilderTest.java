@@ -0,0 +1,111 @@
+package com.github.peacetrue.tree;
+
+import com.github.peacetrue.util.AssertUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * 流式构造树测试，以类的树形结构为示例
+ *
+ * @author xiayx
+ */
+public class StreamingTreeBuilderTest {
+
+    private List<Class> classes = Arrays.asList(
+            Object.class,
+            Throwable.class,
+            Error.class,
+            LinkageError.class,
+            ThreadDeath.class,
+            AssertionError.class,
+            VirtualMachineError.class,
+            Exception.class,
+            CloneNotSupportedException.class,
+            ReflectiveOperationException.class,
+            RuntimeException.class,
+            IndexOutOfBoundsException.class,
+            ArithmeticException.class,
+            ClassCastException.class,
+            NullPointerException.class,
+            IllegalArgumentException.class,
+            InterruptedException.class
+    );
+
+    private KeyPredicate<Class, Class> keyPredicate = KeyPredicate.of(node -> node, Class::getSuperclass);
+
+    @Test
+    public void build() throws Exception {
+        List<Class> reversed = new ArrayList<>(classes);
+        Collections.reverse(reversed);
+        StreamingTreeBuilder<Class> builder = new StreamingTreeBuilder<>(keyPredicate);
+        builder.acceptAll(reversed.iterator());
+        Assert.assertEquals(0, builder.getPendingCount());
+        IndexedTree<Class> tree = builder.build();
+        Assert.assertEquals(classes.size(), tree.getNodes().size());
+        classes.forEach(aClass -> Assert.assertEquals(aClass.getSuperclass(), tree.findParent(aClass).orElse(null)));
+        // 同一层级按到达的顺序排列
+        Assert.assertEquals(Arrays.asList(Exception.class, Error.class), tree.findChildren(Throwable.class));
+        AssertUtils.assertException(() -> builder.accept(Long.class));
+
+        Collections.shuffle(reversed, new Random(0));
+        Tree<Class> shuffled = new StreamingTreeBuilder<>(keyPredicate).acceptAll(reversed.stream()).build();
+        classes.forEach(aClass -> Assert.assertEquals(aClass.getSuperclass(), shuffled.findParent(aClass).orElse(null)));
+    }
+
+    @Test
+    public void invalid() throws Exception {
+        StreamingTreeBuilder<Class> builder = new StreamingTreeBuilder<>(keyPredicate)
+                .acceptAll(Arrays.asList(Exception.class, Long.class, Object.class, Throwable.class, Exception.class).iterator());
+        Assert.assertEquals(1, builder.getPendingCount());
+        InvalidTreeException exception = (InvalidTreeException) AssertUtils.assertException(builder::build);
+        Assert.assertEquals(Collections.singletonList(Object.class), exception.getRoots());
+        Assert.assertEquals(Collections.singletonList(Exception.class), exception.getDuplicates());
+        Assert.assertEquals(Collections.singletonList(Long.class), exception.getOrphans());
+
+        KeyPredicate<Integer, Integer> numbers = KeyPredicate.of(node -> node, node -> node == 0 ? null : node / 2);
+        exception = (InvalidTreeException) AssertUtils.assertException(() -> new StreamingTreeBuilder<>(numbers).acceptAll(Arrays.asList(1, 2, 3).iterator()).build());
+        Assert.assertTrue(exception.getRoots().isEmpty());
+        Assert.assertEquals(3, exception.getOrphans().size());
+    }
+
+    @Test
+    public void stream() throws Exception {
+        // 子节点先于父节点到达，所有节点暂存到根节点到达后一次加入
+        int size = 100_000;
+        KeyPredicate<Integer, Integer> keyPredicate = KeyPredicate.of(node -> node, node -> node == 0 ? null : (node - 1) / 3);
+        IndexedTree<Integer> tree = new StreamingTreeBuilder<>(keyPredicate)
+                .acceptAll(IntStream.range(0, size).map(i -> size - 1 - i).boxed())
+                .build();
+        Assert.assertEquals(size, tree.size(0));
+        Assert.assertEquals(IntStream.range(0, size).boxed().collect(Collectors.toList()), tree.breadthFirst(0).sorted().collect(Collectors.toList()));
+        Assert.assertEquals(Arrays.asList(3, 2, 1), tree.findChildren(0));
+        Assert.assertTrue(tree.isAncestorOf(0, size - 1));
+    }
+
+    @Test
+    public void chain() throws Exception {
+        // 链状树的深度与节点数目相同，接收节点时不能沿父辈节点更新
+        int size = 100_000;
+        KeyPredicate<Integer, Integer> keyPredicate = KeyPredicate.of(node -> node, node -> node == 0 ? null : node - 1);
+        IndexedTree<Integer> tree = new StreamingTreeBuilder<>(keyPredicate)
+                .acceptAll(IntStream.range(0, size).boxed())
+                .build();
+        Assert.assertEquals(size, tree.size(0));
+        Assert.assertEquals(size, tree.height());
+        Assert.assertEquals(size - 1, tree.depth(size - 1));
+        Assert.assertEquals(Collections.singletonList(size - 1), tree.nodesAtLevel(size - 1));
+        Assert.assertTrue(tree.isAncestorOf(0, size - 1));
+        Assert.assertFalse(tree.isAncestorOf(size - 1, 0));
+        Assert.assertEquals(SubtreeHash.of(tree, 0), tree.hash(0));
+
+        // 构造完成后可以继续修改
+        tree.addNode(size);
+        Assert.assertEquals(size + 1, tree.size(0));
+        Assert.assertTrue(tree.isAncestorOf(size - 1, size));
+    }
+
+}
@@ -0,0 +1,118 @@
+package com.github.peacetrue.tree;
+
+import com.github.peacetrue.util.AssertUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * 树的汇总器测试，以类的树形结构为示例
+ *
+ * @author xiayx
+ */
+public class TreeAggregatorTest {
+
+    private List<Class> classes = Arrays.asList(
+            Object.class,
+            Throwable.class,
+            Error.class,
+            LinkageError.class,
+            ThreadDeath.class,
+            AssertionError.class,
+            VirtualMachineError.class,
+            Exception.class,
+            CloneNotSupportedException.class,
+            ReflectiveOperationException.class,
+            RuntimeException.class,
+            IndexOutOfBoundsException.class,
+            ArithmeticException.class,
+            ClassCastException.class,
+            NullPointerException.class,
+            IllegalArgumentException.class,
+            InterruptedException.class
+    );
+
+    private IndexedTree<Class> tree = new IndexedTree<>(KeyPredicate.of(node -> node, Class::getSuperclass), classes);
+
+    @Test
+    public void aggregate() throws Exception {
+        TreeAggregator<Class, Integer> counter = new TreeAggregator<>(tree, node -> 1, Integer::sum);
+        classes.forEach(aClass -> Assert.assertEquals(tree.size(aClass), (int) counter.getValue(aClass)));
+        AssertUtils.assertException(() -> counter.getValue(Long.class));
+
+        // 合并函数不满足交换律时，按先序合并
+        TreeAggregator<Class, String> names = new TreeAggregator<>(tree, node -> node.getSimpleName() + ",", String::concat);
+        Assert.assertEquals(tree.preOrder(Exception.class).map(node -> node.getSimpleName() + ",").collect(Collectors.joining()),
+                names.getValue(Exception.class));
+    }
+
+    @Test
+    public void modify() throws Exception {
+        Map<Class, Integer> values = new HashMap<>();
+        classes.forEach(aClass -> values.put(aClass, 1));
+        TreeAggregator<Class, Integer> aggregator = new TreeAggregator<>(tree, values::get, Integer::sum);
+
+        values.put(UnsupportedOperationException.class, 1);
+        aggregator.addNode(UnsupportedOperationException.class);
+        Assert.assertEquals(7, (int) aggregator.getValue(RuntimeException.class));
+        Assert.assertEquals(18, (int) aggregator.getValue(Object.class));
+
+        values.put(NullPointerException.class, 10);
+        aggregator.updateValue(NullPointerException.class);
+        Assert.assertEquals(16, (int) aggregator.getValue(RuntimeException.class));
+        Assert.assertEquals(10, (int) aggregator.getValue(NullPointerException.class));
+
+        aggregator.moveNode(RuntimeException.class, Error.class);
+        Assert.assertEquals(21, (int) aggregator.getValue(Error.class));
+        Assert.assertEquals(4, (int) aggregator.getValue(Exception.class));
+        Assert.assertEquals(27, (int) aggregator.getValue(Object.class));
+
+        aggregator.removeNode(RuntimeException.class);
+        Assert.assertEquals(5, (int) aggregator.getValue(Error.class));
+        Assert.assertEquals(11, (int) aggregator.getValue(Object.class));
+        Assert.assertFalse(aggregator.getValues().containsKey(NullPointerException.class));
+        AssertUtils.assertException(() -> aggregator.updateValue(NullPointerException.class));
+    }
+
+    @Test
+    public void parallel() throws Exception {
+        // 子树超过顺序计算的阈值时并行计算，结果与逐个节点汇总子辈节点一致
+        Random random = new Random(0);
+        KeyPredicate<Integer, Integer> keyPredicate = KeyPredicate.of(node -> node, node -> node == 0 ? null : random.nextInt(node));
+        List<Integer> nodes = new ArrayList<>();
+        for (int i = 0; i < 50_000; i++) nodes.add(i);
+        IndexedTree<Integer> tree = new IndexedTree<>(keyPredicate, nodes);
+        TreeAggregator<Integer, Long> aggregator = new TreeAggregator<>(tree, Integer::longValue, Long::sum);
+        for (int i = 0; i < 100; i++) {
+            int node = random.nextInt(50_000);
+            long expected = node + tree.findYounger(node).stream().mapToLong(Integer::longValue).sum();
+            Assert.assertEquals(expected, (long) aggregator.getValue(node));
+        }
+        Assert.assertEquals(50_000L * 49_999 / 2, (long) aggregator.getValue(0));
+
+        TreeAggregator<Integer, String> order = new TreeAggregator<>(tree, node -> node + ",", String::concat);
+        Assert.assertEquals(tree.preOrder(0).map(node -> node + ",").collect(Collectors.joining()), order.getValue(0));
+
+        // 并行计算读取快照，非线程安全的树也可以汇总
+        TreeAggregator<Integer, Long> cached = new TreeAggregator<>(new CachingTree<>(tree, 16), Integer::longValue, Long::sum);
+        Assert.assertEquals(aggregator.getValues(), cached.getValues());
+    }
+
+    /** 链状树的深度远超线程栈的容量，汇总时不按层级递归 */
+    @Test
+    public void chain() throws Exception {
+        int size = 200_000, middle = size / 2, fanout = 20_000;
+        // 超出链长度的节点挂载到链的中间，形成宽层级
+        KeyPredicate<Integer, Integer> keyPredicate = KeyPredicate.of(node -> node, node -> node == 0 ? null : node < size ? node - 1 : middle);
+        IndexedTree<Integer> tree = new StreamingTreeBuilder<>(keyPredicate).acceptAll(IntStream.range(0, size + fanout).boxed()).build();
+        TreeAggregator<Integer, Long> aggregator = new TreeAggregator<>(tree, node -> 1L, Long::sum);
+        Assert.assertEquals((long) size + fanout, (long) aggregator.getValue(0));
+        Assert.assertEquals((long) size - middle + fanout, (long) aggregator.getValue(middle));
+        for (int node = middle + 1; node < size; node += 997) Assert.assertEquals(size - node, (long) aggregator.getValue(node));
+        Assert.assertEquals(1L, (long) aggregator.getValue(size + fanout - 1));
+    }
+
+}
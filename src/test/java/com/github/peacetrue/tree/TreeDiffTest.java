@@ -0,0 +1,269 @@
+package com.github.peacetrue.tree;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * 树的差异测试
+ * <pre>
+ * 原树       新树
+ * 1          1
+ * -2         -2
+ * --4        --6
+ * --5        ---7
+ * -3         ---4
+ * --6        -3
+ * ---7       --8
+ * </pre>
+ *
+ * @author xiayx
+ */
+public class TreeDiffTest {
+
+    private static final KeyPredicate<Node, Integer> KEY_PREDICATE = KeyPredicate.of(Node::getId, Node::getParentId);
+
+    private List<Node> oldNodes = nodes(1, null, 2, 1, 3, 1, 4, 2, 5, 2, 6, 3, 7, 6);
+    private List<Node> newNodes = nodes(1, null, 2, 1, 3, 1, 6, 2, 7, 6, 4, 6, 8, 3);
+
+    @Test
+    public void diff() throws Exception {
+        TreeDiff<Node> diff = TreeDiff.of(new IndexedTree<>(KEY_PREDICATE, oldNodes), new IndexedTree<>(KEY_PREDICATE, newNodes));
+        Assert.assertEquals(nodes(8, 3), diff.getAdded());
+        Assert.assertEquals(nodes(5, 2), diff.getRemoved());
+        Assert.assertEquals(nodes(6, 2, 4, 6), diff.getMoved());
+        Assert.assertFalse(diff.isEmpty());
+
+        Assert.assertTrue(TreeDiff.of(new IndexedTree<>(KEY_PREDICATE, oldNodes), new GenericTree<>(KEY_PREDICATE, oldNodes)).isEmpty());
+
+        // 删除的节点包括其子辈节点
+        List<Node> pruned = nodes(1, null, 2, 1, 4, 2, 5, 2);
+        diff = TreeDiff.of(new IndexedTree<>(KEY_PREDICATE, oldNodes), new IndexedTree<>(KEY_PREDICATE, pruned));
+        Assert.assertEquals(nodes(3, 1, 6, 3, 7, 6), diff.getRemoved());
+        Assert.assertTrue(diff.getAdded().isEmpty());
+        Assert.assertTrue(diff.getMoved().isEmpty());
+    }
+
+    /** 只沿子树散列不同的路径比较，跳过相同的分支 */
+    @Test
+    public void skipIdentical() throws Exception {
+        List<Node> nodes = new ArrayList<>();
+        nodes.add(new Node(0, null));
+        for (int i = 1; i < 5000; i++) nodes.add(new Node(i, (i - 1) / 4));
+        IndexedTree<Node> changed = new IndexedTree<>(KEY_PREDICATE, nodes);
+        changed.addNode(new Node(5000, 4999));
+
+        CountingTreeMetrics metrics = new CountingTreeMetrics();
+        Tree<Node> tree = new MeteredTree<>(new IndexedTree<>(KEY_PREDICATE, nodes), metrics);
+        TreeDiff<Node> diff = TreeDiff.of(tree, changed);
+        Assert.assertEquals(nodes(5000, 4999), diff.getAdded());
+        Assert.assertTrue(metrics.getCount(TreeMetrics.Operation.FIND_CHILDREN) <= tree.depth(new Node(4999, null)) + 1);
+        Assert.assertTrue(metrics.getCount(TreeMetrics.Operation.HASH) < 100);
+    }
+
+    /** 未维护子树散列的树，一次计算所有节点的子树散列，不逐个节点遍历子树 */
+    @Test
+    public void chainGenericTree() throws Exception {
+        List<Node> nodes = new ArrayList<>();
+        nodes.add(new Node(0, null));
+        for (int i = 1; i < 1000; i++) nodes.add(new Node(i, i - 1));
+        GenericTree<Node> changed = new GenericTree<>(KEY_PREDICATE, nodes);
+        changed.addNode(new Node(1000, 999));
+
+        CountingTreeMetrics metrics = new CountingTreeMetrics();
+        Tree<Node> tree = new MeteredTree<>(new GenericTree<>(KEY_PREDICATE, nodes), metrics);
+        TreeDiff<Node> diff = TreeDiff.of(tree, changed);
+        Assert.assertEquals(nodes(1000, 999), diff.getAdded());
+        Assert.assertTrue(diff.getRemoved().isEmpty());
+        Assert.assertTrue(diff.getMoved().isEmpty());
+        Assert.assertEquals(0, metrics.getCount(TreeMetrics.Operation.HASH));
+        // 计算散列时每个节点查找一次子节点，比较时最多再查找一次
+        Assert.assertTrue(metrics.getCount(TreeMetrics.Operation.FIND_CHILDREN) <= 2 * nodes.size());
+    }
+
+    /** 替换为 {@code hashCode} 相同的兄弟节点 */
+    @Test
+    public void collidingSibling() throws Exception {
+        Assert.assertEquals("Aa".hashCode(), "BB".hashCode());
+        Map<String, String> parents = new HashMap<>();
+        parents.put("Aa", "root");
+        parents.put("BB", "root");
+        parents.put("leaf", "root");
+        KeyPredicate<String, String> keyPredicate = KeyPredicate.of(node -> node, parents::get);
+        List<String> oldNodes = Arrays.asList("root", "Aa", "leaf"), newNodes = Arrays.asList("root", "BB", "leaf");
+        List<TreeDiff<String>> diffs = Arrays.asList(
+                TreeDiff.of(new IndexedTree<>(keyPredicate, oldNodes), new IndexedTree<>(keyPredicate, newNodes)),
+                TreeDiff.of(new GenericTree<>(keyPredicate, oldNodes), new GenericTree<>(keyPredicate, newNodes)),
+                TreeDiff.of(new IndexedTree<>(keyPredicate, oldNodes).freeze(), new ConcurrentTree<>(keyPredicate, newNodes))
+        );
+        for (TreeDiff<String> diff : diffs) {
+            Assert.assertEquals(Collections.singletonList("BB"), diff.getAdded());
+            Assert.assertEquals(Collections.singletonList("Aa"), diff.getRemoved());
+            Assert.assertTrue(diff.getMoved().isEmpty());
+        }
+    }
+
+    /** {@code hashCode} 冲突的节点通过指定的 64 位指纹区分 */
+    @Test
+    public void fingerprint() throws Exception {
+        KeyPredicate<Label, String> keyPredicate = KeyPredicate.of(Label::getName, Label::getParentName);
+        Tree<Label> oldTree = new IndexedTree<>(keyPredicate, Arrays.asList(new Label("root", null), new Label("ab", "root")));
+        Tree<Label> newTree = new IndexedTree<>(keyPredicate, Arrays.asList(new Label("root", null), new Label("cd", "root")));
+        // hashCode 相同，默认的指纹无法区分
+        Assert.assertTrue(TreeDiff.of(oldTree, newTree).isEmpty());
+
+        TreeDiff<Label> diff = TreeDiff.of(oldTree, newTree, label -> SubtreeHash.fingerprint(label.getName()));
+        Assert.assertEquals(Collections.singletonList(new Label("cd", "root")), diff.getAdded());
+        Assert.assertEquals(Collections.singletonList(new Label("ab", "root")), diff.getRemoved());
+        Assert.assertTrue(diff.getMoved().isEmpty());
+        Assert.assertTrue(TreeDiff.of(oldTree, new GenericTree<>(keyPredicate, oldTree.getNodes()), label -> SubtreeHash.fingerprint(label.getName())).isEmpty());
+    }
+
+    @Test
+    public void apply() throws Exception {
+        Tree<Node> newTree = new IndexedTree<>(KEY_PREDICATE, newNodes);
+        List<Tree<Node>> trees = Arrays.asList(
+                new IndexedTree<>(KEY_PREDICATE, oldNodes),
+                new ConcurrentTree<>(KEY_PREDICATE, oldNodes),
+                // 不支持移动节点，先删除再加入
+                new GenericTree<>(KEY_PREDICATE, oldNodes)
+        );
+        for (Tree<Node> tree : trees) {
+            TreeDiff.of(tree, newTree).apply(tree);
+            assertSameRelations(newTree, tree);
+        }
+    }
+
+    @Test
+    public void applyRootChanged() throws Exception {
+        Tree<Node> tree = new IndexedTree<>(KEY_PREDICATE, oldNodes);
+        Tree<Node> newTree = new IndexedTree<>(KEY_PREDICATE, nodes(0, null, 1, 0, 2, 1));
+        TreeDiff<Node> diff = TreeDiff.of(tree, newTree);
+        Assert.assertEquals(nodes(0, null), diff.getAdded());
+        Assert.assertEquals(nodes(1, 0), diff.getMoved());
+        diff.apply(tree);
+        assertSameRelations(newTree, tree);
+
+        Tree<Node> empty = new IndexedTree<>(KEY_PREDICATE);
+        TreeDiff.of(tree, empty).apply(tree);
+        Assert.assertFalse(tree.getRoot().isPresent());
+        TreeDiff.of(empty, newTree).apply(tree);
+        assertSameRelations(newTree, tree);
+    }
+
+    /** 随机修改后同步 */
+    @Test
+    public void applyRandom() throws Exception {
+        Random random = new Random(0);
+        List<Node> nodes = new ArrayList<>();
+        nodes.add(new Node(0, null));
+        for (int i = 1; i < 200; i++) nodes.add(new Node(i, random.nextInt(i)));
+        Tree<Node> tree = new IndexedTree<>(KEY_PREDICATE, nodes);
+        for (int round = 0; round < 20; round++) {
+            List<Node> changed = new ArrayList<>(nodes.subList(0, 1));
+            for (int i = 1; i < nodes.size(); i++) {
+                // 只能移动到编号更小的节点下，不会形成环
+                int id = nodes.get(i).getId();
+                if (random.nextInt(10) == 0) continue;
+                changed.add(random.nextInt(10) == 0 ? new Node(id, random.nextInt(id)) : nodes.get(i));
+            }
+            for (int i = 0; i < 5; i++) changed.add(new Node(1000 * (round + 1) + i, 0));
+            IndexedTree<Node> newTree = new IndexedTree<>(KEY_PREDICATE, changed.stream().filter(node -> {
+                for (Node current = node; current.getParentId() != null; ) {
+                    Integer parentId = current.getParentId();
+                    current = changed.stream().filter(other -> other.getId() == parentId).findFirst().orElse(null);
+                    if (current == null) return false;
+                }
+                return true;
+            }).collect(Collectors.toList()));
+            TreeDiff.of(tree, newTree).apply(tree);
+            assertSameRelations(newTree, tree);
+            nodes = new ArrayList<>(newTree.getNodes());
+            nodes.sort(Comparator.comparingInt(Node::getId));
+        }
+    }
+
+    private static void assertSameRelations(Tree<Node> expected, Tree<Node> actual) {
+        Assert.assertEquals(new HashSet<>(expected.getNodes()), new HashSet<>(actual.getNodes()));
+        expected.getNodes().forEach(node -> Assert.assertEquals(expected.findParent(node), actual.findParent(node)));
+        Assert.assertTrue(TreeDiff.of(actual, expected).isEmpty());
+    }
+
+    /** 依次传入主键和父主键 */
+    private static List<Node> nodes(Integer... keys) {
+        List<Node> nodes = new ArrayList<>();
+        for (int i = 0; i < keys.length; i += 2) nodes.add(new Node(keys[i], keys[i + 1]));
+        return nodes;
+    }
+
+    /** 包含主键和父主键的节点，通过主键判断相等 */
+    private static class Node {
+        private final int id;
+        private final Integer parentId;
+
+        Node(int id, Integer parentId) {
+            this.id = id;
+            this.parentId = parentId;
+        }
+
+        int getId() {
+            return id;
+        }
+
+        Integer getParentId() {
+            return parentId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return this == o || o instanceof Node && ((Node) o).id == id;
+        }
+
+        @Override
+        public int hashCode() {
+            return id;
+        }
+
+        @Override
+        public String toString() {
+            return id + "<-" + parentId;
+        }
+    }
+
+    /** 包含名称和父名称的节点，通过名称判断相等，散列只取名称的长度，容易冲突 */
+    private static class Label {
+        private final String name;
+        private final String parentName;
+
+        Label(String name, String parentName) {
+            this.name = name;
+            this.parentName = parentName;
+        }
+
+        String getName() {
+            return name;
+        }
+
+        String getParentName() {
+            return parentName;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return this == o || o instanceof Label && ((Label) o).name.equals(name);
+        }
+
+        @Override
+        public int hashCode() {
+            return name.length();
+        }
+
+        @Override
+        public String toString() {
+            return name + "<-" + parentName;
+        }
+    }
+
+}
@@ -0,0 +1,128 @@
+package com.github.peacetrue.tree;
+
+import com.github.peacetrue.util.AssertUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * 树的二进制格式测试，以类的树形结构为示例
+ *
+ * @author xiayx
+ */
+public class TreeFormatTest {
+
+    private List<Class> classes = Arrays.asList(
+            Object.class,
+            Throwable.class,
+            Error.class,
+            LinkageError.class,
+            ThreadDeath.class,
+            AssertionError.class,
+            VirtualMachineError.class,
+            Exception.class,
+            CloneNotSupportedException.class,
+            ReflectiveOperationException.class,
+            RuntimeException.class,
+            IndexOutOfBoundsException.class,
+            ArithmeticException.class,
+            ClassCastException.class,
+            NullPointerException.class,
+            IllegalArgumentException.class,
+            InterruptedException.class
+    );
+
+    /** 通过类名编解码 */
+    private NodeCodec<Class> codec = new NodeCodec<Class>() {
+        @Override
+        public byte[] encode(Class node) {
+            return node.getName().getBytes(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public Class decode(ByteBuffer buffer) {
+            byte[] bytes = new byte[buffer.remaining()];
+            buffer.get(bytes);
+            try {
+                return Class.forName(new String(bytes, StandardCharsets.UTF_8));
+            } catch (ClassNotFoundException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    };
+
+    private GenericTree<Class> tree = new GenericTree<>(
+            node -> node.equals(Object.class),
+            (parent, child) -> parent.equals(child.getSuperclass()),
+            classes);
+
+    @Test
+    public void readWrite() throws Exception {
+        Path path = Files.createTempFile("tree", ".bin");
+        try {
+            TreeFormat.write(tree, codec, path);
+            SnapshotTree<Class> read = TreeFormat.read(path, codec);
+            Assert.assertEquals(tree.preOrder(Object.class).collect(Collectors.toList()), new ArrayList<>(read.getNodes()));
+            classes.forEach(aClass -> Assert.assertEquals(aClass.getSuperclass(), read.findParent(aClass).orElse(null)));
+            Assert.assertEquals(tree.findChildren(Exception.class), read.findChildren(Exception.class));
+        } finally {
+            Files.delete(path);
+        }
+
+        // 子树按自身的先序写入，根节点没有父节点
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        TreeFormat.write(tree.view(RuntimeException.class), codec, out);
+        SnapshotTree<Class> subtree = TreeFormat.read(ByteBuffer.wrap(out.toByteArray()), codec);
+        Assert.assertEquals(RuntimeException.class, subtree.getRoot().orElse(null));
+        Assert.assertEquals(6, subtree.getNodes().size());
+        Assert.assertFalse(subtree.findParent(RuntimeException.class).isPresent());
+
+        out.reset();
+        TreeFormat.write(new IndexedTree<Class>(node -> true, (parent, child) -> false), codec, out);
+        Assert.assertFalse(TreeFormat.read(ByteBuffer.wrap(out.toByteArray()), codec).getRoot().isPresent());
+    }
+
+    @Test
+    public void invalid() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        TreeFormat.write(tree, codec, out);
+        byte[] bytes = out.toByteArray();
+        AssertUtils.assertException(() -> TreeFormat.read(ByteBuffer.wrap(bytes, 0, 8), codec));
+        AssertUtils.assertException(() -> TreeFormat.read(ByteBuffer.wrap(bytes, 0, bytes.length - 1), codec));
+        byte[] version = bytes.clone();
+        version[7] = 2;
+        AssertUtils.assertException(() -> TreeFormat.read(ByteBuffer.wrap(version), codec));
+        byte[] magic = bytes.clone();
+        magic[0] = 0;
+        AssertUtils.assertException(() -> TreeFormat.read(ByteBuffer.wrap(magic), codec));
+
+        // 头部不完整：缺少最后一个偏移
+        int count = classes.size(), parents = 12, offsets = parents + count * 4;
+        Throwable throwable = AssertUtils.assertException(() -> TreeFormat.read(ByteBuffer.wrap(bytes, 0, offsets + count * 4), codec));
+        Assert.assertTrue(throwable instanceof IllegalArgumentException);
+        // 父节点位置无效：非首个节点为根节点、指向自身或之后的节点、不在先序路径上
+        Assert.assertTrue(readModified(bytes, parents + 4 * 2, -1) instanceof IllegalArgumentException);
+        Assert.assertTrue(readModified(bytes, parents + 4 * 2, 2) instanceof IllegalArgumentException);
+        Assert.assertTrue(readModified(bytes, parents + 4 * 2, count) instanceof IllegalArgumentException);
+        Assert.assertTrue(readModified(bytes, parents + 4 * 8, 2) instanceof IllegalArgumentException);
+        Assert.assertTrue(readModified(bytes, parents, 0) instanceof IllegalArgumentException);
+        // 偏移无效：不从 0 开始、递减
+        Assert.assertTrue(readModified(bytes, offsets, 1) instanceof IllegalArgumentException);
+        Assert.assertTrue(readModified(bytes, offsets + 4 * 2, 0) instanceof IllegalArgumentException);
+    }
+
+    /** 修改指定位置的整数后读取，返回读取时抛出的异常 */
+    private Throwable readModified(byte[] bytes, int index, int value) {
+        byte[] modified = bytes.clone();
+        ByteBuffer.wrap(modified).putInt(index, value);
+        return AssertUtils.assertException(() -> TreeFormat.read(ByteBuffer.wrap(modified), codec));
+    }
+
+}